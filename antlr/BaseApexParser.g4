@@ -78,6 +78,17 @@ compilationUnit
     : typeDeclaration EOF
     ;
 
+// entry point for a SOQL query string, without enclosing brackets
+soqlUnit
+    : query EOF
+    ;
+
+// entry point for a SOSL search string, without enclosing brackets, the
+// search term must be lexed as a FindLiteral or FindLiteralAlt
+soslUnit
+    : (FindLiteral | FindLiteralAlt) soslClauses EOF
+    ;
+
 typeDeclaration
     : modifier* classDeclaration
     | modifier* enumDeclaration
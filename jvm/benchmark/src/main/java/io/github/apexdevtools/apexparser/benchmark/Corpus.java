@@ -0,0 +1,98 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser.benchmark;
+
+import io.github.apexdevtools.apexparser.ApexParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+/**
+ * Synthetic sources bundled with the benchmarks. Sources are read once and
+ * kept as code point buffers, so benchmarks measure lexing and parsing rather
+ * than I/O or decoding.
+ */
+public enum Corpus {
+  CLASSES(
+    ApexParser::compilationUnit,
+    "AccountService.cls",
+    "QuerySelector.cls",
+    "ExpressionCalculator.cls"
+  ),
+  TRIGGERS(ApexParser::triggerUnit, "AccountTrigger.trigger"),
+  SOQL(ApexParser::compilationUnit, "QuerySelector.cls"),
+  EXPRESSIONS(ApexParser::compilationUnit, "ExpressionCalculator.cls");
+
+  /** The entry rule for the sources. */
+  final Function<ApexParser, ? extends ParserRuleContext> rule;
+
+  private final List<String> names;
+
+  Corpus(
+    Function<ApexParser, ? extends ParserRuleContext> rule,
+    String... names
+  ) {
+    this.rule = rule;
+    this.names = Collections.unmodifiableList(Arrays.asList(names));
+  }
+
+  /** Fresh streams over the sources, positioned at the start. */
+  List<CharStream> streams() {
+    List<CharStream> streams = new ArrayList<>(names.size());
+    for (String name : names) {
+      streams.add(read(name));
+    }
+    return streams;
+  }
+
+  static void rewind(List<CharStream> streams) {
+    for (CharStream stream : streams) {
+      stream.seek(0);
+    }
+  }
+
+  private static CharStream read(String name) {
+    try (InputStream in = Corpus.class.getResourceAsStream("corpus/" + name)) {
+      if (in == null) {
+        throw new IllegalStateException("Missing corpus file " + name);
+      }
+      return CharStreams.fromStream(in, StandardCharsets.UTF_8);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
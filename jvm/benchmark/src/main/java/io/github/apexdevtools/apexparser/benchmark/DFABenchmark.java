@@ -0,0 +1,94 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser.benchmark;
+
+import io.github.apexdevtools.apexparser.ApexDFACache;
+import io.github.apexdevtools.apexparser.ApexParser;
+import io.github.apexdevtools.apexparser.ApexParserFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.antlr.v4.runtime.CharStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to parse the class corpus with an empty DFA cache versus a warm one.
+ * The cold case starts a new {@link ApexDFACache} generation before every
+ * operation, so it measures the cost of building predictions. The JIT is
+ * warmed up in both cases.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Thread)
+public class DFABenchmark {
+
+  @Param({ "COLD", "WARM", "WARM_UP" })
+  public String cache;
+
+  private List<CharStream> streams;
+
+  @Setup
+  public void setup() {
+    streams = Corpus.CLASSES.streams();
+  }
+
+  @Setup(Level.Iteration)
+  public void prepare() {
+    if (!"WARM".equals(cache)) {
+      ApexDFACache.clear();
+    }
+    if ("WARM_UP".equals(cache)) {
+      ApexParserFactory.warmUp();
+    }
+  }
+
+  @Benchmark
+  public int parse() {
+    Corpus.rewind(streams);
+    int size = 0;
+    for (CharStream stream : streams) {
+      ApexParser parser = ApexParserFactory.createParser(stream);
+      size += ApexParserFactory.parse(parser, ApexParser::compilationUnit)
+        .getChildCount();
+    }
+    return size;
+  }
+}
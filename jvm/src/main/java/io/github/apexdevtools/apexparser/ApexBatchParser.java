@@ -0,0 +1,248 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+/**
+ * Parses batches of in-memory sources, such as thousands of small strings
+ * received together, returning results in the order of the sources.
+ *
+ * <p>Each worker parses sources with an {@link ApexParseSession} for its
+ * thread, so lexers, parsers and token buffers are reused across a batch and
+ * between batches rather than created for each source. Sources are read with
+ * {@link CharSequenceCharStream}, so the text is not copied. Workers claim
+ * the next source as they finish one, so a few large sources do not hold up
+ * the rest.
+ */
+public final class ApexBatchParser implements AutoCloseable {
+
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+  private final int parallelism;
+
+  /**
+   * Creates a batch parser that runs on the given executor, which is not shut
+   * down when the batch parser is closed. Sessions are held by the executor
+   * threads, so a pool of long lived threads gets the most reuse.
+   *
+   * @param parallelism number of workers used for each batch
+   */
+  public ApexBatchParser(ExecutorService executor, int parallelism) {
+    this(executor, false, parallelism);
+  }
+
+  private ApexBatchParser(
+    ExecutorService executor,
+    boolean ownsExecutor,
+    int parallelism
+  ) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException(
+        "parallelism must be positive: " + parallelism
+      );
+    }
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Creates a batch parser with its own pool of daemon threads. One thread
+   * parses on the calling thread, values less than 1 use all available
+   * processors.
+   */
+  public static ApexBatchParser create(int threads) {
+    int count = threads < 1
+      ? Runtime.getRuntime().availableProcessors()
+      : threads;
+    if (count == 1) return new ApexBatchParser(null, false, 1);
+
+    AtomicInteger created = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(
+      count,
+      task -> {
+        Thread thread = new Thread(
+          task,
+          "apex-batch-" + created.incrementAndGet()
+        );
+        thread.setDaemon(true);
+        return thread;
+      }
+    );
+    return new ApexBatchParser(executor, true, count);
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Parses each source with the given rule.
+   *
+   * @throws InterruptedException if interrupted while waiting for workers
+   */
+  public <T extends ParserRuleContext> List<ParseResult<T>> parse(
+    List<? extends CharSequence> sources,
+    Function<ApexParser, T> entryRule
+  ) throws InterruptedException {
+    return parse(
+      sources.size(),
+      i -> CharSequenceCharStream.fromCharSequence(sources.get(i), null),
+      entryRule
+    );
+  }
+
+  /**
+   * Parses sources concatenated in a single buffer. Source {@code i} starts
+   * at {@code offsets[i]} and ends at the next offset, or the end of the
+   * buffer for the last source. Offsets must be in ascending order. Lines and
+   * columns in errors and tokens are relative to the start of each source.
+   *
+   * @throws InterruptedException if interrupted while waiting for workers
+   */
+  public <T extends ParserRuleContext> List<ParseResult<T>> parse(
+    CharSequence buffer,
+    int[] offsets,
+    Function<ApexParser, T> entryRule
+  ) throws InterruptedException {
+    int[] bounds = Arrays.copyOf(offsets, offsets.length + 1);
+    bounds[offsets.length] = buffer.length();
+    for (int i = 0; i < offsets.length; i++) {
+      if (bounds[i] < 0 || bounds[i] > bounds[i + 1]) {
+        throw new IllegalArgumentException(
+          "Invalid offset " + bounds[i] + " for source " + i
+        );
+      }
+    }
+    return parse(
+      offsets.length,
+      i ->
+        CharSequenceCharStream.fromRange(
+          buffer,
+          bounds[i],
+          bounds[i + 1],
+          null
+        ),
+      entryRule
+    );
+  }
+
+  /**
+   * Shuts down the executor if the batch parser created it. Batches already
+   * started are completed.
+   */
+  @Override
+  public void close() {
+    if (ownsExecutor) executor.shutdown();
+  }
+
+  private <T extends ParserRuleContext> List<ParseResult<T>> parse(
+    int count,
+    IntFunction<CharStream> sources,
+    Function<ApexParser, T> entryRule
+  ) throws InterruptedException {
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    ParseResult<T>[] results = new ParseResult[count];
+    Batch<T> batch = new Batch<>(count, sources, entryRule, results);
+
+    int workers = Math.min(parallelism, count);
+    if (executor == null || workers <= 1) {
+      batch.run();
+    } else {
+      List<Future<?>> pending = new ArrayList<>(workers);
+      try {
+        for (int i = 0; i < workers; i++) {
+          pending.add(executor.submit(batch::run));
+        }
+        for (Future<?> worker : pending) {
+          getResult(worker);
+        }
+      } finally {
+        // stop claiming sources if a worker failed or we were interrupted
+        batch.next.set(count);
+      }
+    }
+    return Collections.unmodifiableList(Arrays.asList(results));
+  }
+
+  private static void getResult(Future<?> worker)
+    throws InterruptedException {
+    try {
+      worker.get();
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private static final class Batch<T extends ParserRuleContext> {
+
+    final AtomicInteger next = new AtomicInteger();
+    final int count;
+    final IntFunction<CharStream> sources;
+    final Function<ApexParser, T> entryRule;
+    final ParseResult<T>[] results;
+
+    Batch(
+      int count,
+      IntFunction<CharStream> sources,
+      Function<ApexParser, T> entryRule,
+      ParseResult<T>[] results
+    ) {
+      this.count = count;
+      this.sources = sources;
+      this.entryRule = entryRule;
+      this.results = results;
+    }
+
+    void run() {
+      ApexParseSession session = ApexParseSession.get();
+      int i;
+      while ((i = next.getAndIncrement()) < count) {
+        ParseResult.ErrorCollector errors = new ParseResult.ErrorCollector();
+        T tree = session.parse(sources.apply(i), entryRule, errors);
+        results[i] = new ParseResult<>(tree, errors.errors);
+      }
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+/**
+ * Manages the DFA caches used by lexers and parsers created with
+ * {@link ApexParserFactory}.
+ *
+ * <p>ANTLR caches prediction results in a DFA that is shared by all
+ * recognizers and grows with the variety of input seen. Caches are held in
+ * generations; clearing or exceeding the high-water mark starts a new
+ * generation with empty DFA arrays and a new {@link PredictionContextCache}.
+ * Lexers and parsers keep the generation they were created with, so in-flight
+ * parses continue with their cache and the old generation is released once
+ * they complete.
+ *
+ * <p>The first generation uses the static caches of the generated
+ * {@link ApexLexer} and {@link ApexParser}, so until a new generation is
+ * started, behaviour is the same as constructing the generated types directly.
+ * Those static caches are cleared when the first new generation starts, as by
+ * {@code clearDFA()}, which affects every recognizer still using them,
+ * including in-flight parses and those constructed directly.
+ */
+public final class ApexDFACache {
+
+  // Approximate retained sizes, assuming compressed references
+  private static final int STATE_BYTES = 96;
+  private static final int CONFIG_BYTES = 40;
+  private static final int EDGE_BYTES = 4;
+
+  // Number of lexer/parser creations between high-water mark checks
+  private static final int CHECK_INTERVAL = 1024;
+
+  private static final AtomicInteger created = new AtomicInteger();
+  private static volatile Generation current = new Generation(
+    0,
+    ApexLexer._decisionToDFA,
+    ApexLexer._sharedContextCache,
+    ApexParser._decisionToDFA,
+    ApexParser._sharedContextCache
+  );
+  private static volatile long highWaterMark = 0;
+
+  private ApexDFACache() {}
+
+  /** The current generation number, starting from 0. */
+  public static int getGeneration() {
+    return current.number;
+  }
+
+  /** The number of DFA states held by the current generation. */
+  public static int getStateCount() {
+    Generation generation = current;
+    return (
+      countStates(generation.lexerDFA) + countStates(generation.parserDFA)
+    );
+  }
+
+  /**
+   * An estimate of the heap retained by DFA states of the current generation,
+   * in bytes. Shared prediction contexts are not included.
+   */
+  public static long getApproximateSize() {
+    Generation generation = current;
+    return (
+      approximateSize(generation.lexerDFA) +
+      approximateSize(generation.parserDFA)
+    );
+  }
+
+  /**
+   * Sets the approximate size in bytes at which a new generation is started.
+   * The size is checked periodically as lexers and parsers are created. Zero,
+   * the default, disables the check.
+   */
+  public static void setHighWaterMark(long bytes) {
+    highWaterMark = Math.max(bytes, 0);
+  }
+
+  public static long getHighWaterMark() {
+    return highWaterMark;
+  }
+
+  /**
+   * Starts a new generation. Lexers and parsers created after this use empty
+   * caches, existing ones are unaffected unless they use the first
+   * generation, whose static caches are cleared.
+   */
+  public static void clear() {
+    startGeneration(current);
+  }
+
+  static void install(ApexLexer lexer) {
+    Generation generation = next();
+    LexerATNSimulator interpreter = lexer.getInterpreter();
+    if (
+      !(interpreter instanceof ApexLexerATNSimulator) ||
+      interpreter.decisionToDFA != generation.lexerDFA
+    ) {
+      lexer.setInterpreter(
+        new ApexLexerATNSimulator(
+          lexer,
+          generation.lexerDFA,
+          generation.lexerContextCache
+        )
+      );
+    }
+  }
+
+  static void install(ApexParser parser) {
+    Generation generation = next();
+    ParserATNSimulator interpreter = parser.getInterpreter();
+    if (
+      !(interpreter instanceof ApexParserATNSimulator) ||
+      interpreter.decisionToDFA != generation.parserDFA
+    ) {
+      parser.setInterpreter(
+        new ApexParserATNSimulator(
+          parser,
+          generation.parserDFA,
+          generation.parserContextCache
+        )
+      );
+    }
+  }
+
+  static boolean checkHighWaterMark() {
+    Generation generation = current;
+    long limit = highWaterMark;
+    if (limit > 0 && getApproximateSize() > limit) {
+      startGeneration(generation);
+      return true;
+    }
+    return false;
+  }
+
+  private static Generation next() {
+    if (
+      highWaterMark > 0 && created.incrementAndGet() % CHECK_INTERVAL == 0
+    ) {
+      checkHighWaterMark();
+    }
+    return current;
+  }
+
+  private static synchronized void startGeneration(Generation from) {
+    // another thread may have already moved on
+    if (current != from) return;
+
+    current = new Generation(
+      from.number + 1,
+      createDFA(ApexLexer._ATN),
+      new PredictionContextCache(),
+      createDFA(ApexParser._ATN),
+      new PredictionContextCache()
+    );
+
+    // Release states held by the generated static caches, matching what
+    // clearCache() does. Their context caches cannot be cleared but no
+    // longer grow as new recognizers do not use them.
+    if (from.number == 0) {
+      resetDFA(from.lexerDFA, ApexLexer._ATN);
+      resetDFA(from.parserDFA, ApexParser._ATN);
+    }
+  }
+
+  private static DFA[] createDFA(ATN atn) {
+    DFA[] dfa = new DFA[atn.getNumberOfDecisions()];
+    resetDFA(dfa, atn);
+    return dfa;
+  }
+
+  private static void resetDFA(DFA[] dfa, ATN atn) {
+    for (int i = 0; i < dfa.length; i++) {
+      dfa[i] = new DFA(atn.getDecisionState(i), i);
+    }
+  }
+
+  private static int countStates(DFA[] decisions) {
+    int count = 0;
+    for (DFA dfa : decisions) {
+      synchronized (dfa.states) {
+        count += dfa.states.size();
+      }
+    }
+    return count;
+  }
+
+  private static long approximateSize(DFA[] decisions) {
+    long size = 0;
+    for (DFA dfa : decisions) {
+      synchronized (dfa.states) {
+        for (DFAState state : dfa.states.values()) {
+          size += STATE_BYTES;
+          if (state.edges != null) {
+            size += (long) state.edges.length * EDGE_BYTES;
+          }
+          if (state.configs != null) {
+            size += (long) state.configs.size() * CONFIG_BYTES;
+          }
+        }
+      }
+    }
+    return size;
+  }
+
+  private static final class Generation {
+
+    final int number;
+    final DFA[] lexerDFA;
+    final PredictionContextCache lexerContextCache;
+    final DFA[] parserDFA;
+    final PredictionContextCache parserContextCache;
+
+    Generation(
+      int number,
+      DFA[] lexerDFA,
+      PredictionContextCache lexerContextCache,
+      DFA[] parserDFA,
+      PredictionContextCache parserContextCache
+    ) {
+      this.number = number;
+      this.lexerDFA = lexerDFA;
+      this.lexerContextCache = lexerContextCache;
+      this.parserDFA = parserDFA;
+      this.parserContextCache = parserContextCache;
+    }
+  }
+}
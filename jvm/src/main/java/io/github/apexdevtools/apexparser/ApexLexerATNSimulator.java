@@ -0,0 +1,230 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.Vocabulary;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+
+/**
+ * Lexer simulator that matches identifiers and keywords without the ATN.
+ *
+ * <p>The lexer declares a few hundred case insensitive keywords ahead of
+ * {@code Identifier}, so the DFA must walk a keyword prefix before it can
+ * settle on an identifier. Here a run of ASCII identifier characters is read
+ * directly and classified with a perfect hash of the keywords, folding ASCII
+ * case, giving the same token the generated lexer would: the first rule
+ * declared that matches the whole run. Runs that contain other characters,
+ * or could start a longer token such as {@code system.runAs}, are left to
+ * the ATN.
+ */
+final class ApexLexerATNSimulator extends LexerATNSimulator {
+
+  // Multiplier for the keyword hash, searched for if this has collisions
+  private static final int DEFAULT_MULTIPLIER = 0x44B;
+
+  private static final int[] TYPES;
+  private static final String[] WORDS;
+  private static final int MULTIPLIER;
+  private static final int MASK;
+  private static final int MAX_WORD_LENGTH;
+
+  static {
+    Map<String, Integer> words = keywords();
+    int max = 0;
+    for (String word : words.keySet()) max = Math.max(max, word.length());
+    MAX_WORD_LENGTH = max;
+
+    // A table of 16 slots per word is usually perfect within a few tries
+    int size = Integer.highestOneBit(words.size() * 16 - 1) << 1;
+    int multiplier = DEFAULT_MULTIPLIER;
+    String[] table = build(words, size, multiplier);
+    while (table == null) {
+      multiplier += 2;
+      table = build(words, size, multiplier);
+    }
+
+    MULTIPLIER = multiplier;
+    MASK = size - 1;
+    WORDS = table;
+    TYPES = new int[size];
+    for (int i = 0; i < size; i++) {
+      if (table[i] != null) TYPES[i] = words.get(table[i]);
+    }
+  }
+
+  // Reused to hold the run being classified
+  private final char[] word = new char[MAX_WORD_LENGTH];
+
+  ApexLexerATNSimulator(
+    Lexer lexer,
+    DFA[] decisionToDFA,
+    PredictionContextCache sharedContextCache
+  ) {
+    super(lexer, ApexLexer._ATN, decisionToDFA, sharedContextCache);
+  }
+
+  @Override
+  public int match(CharStream input, int mode) {
+    if (mode == Lexer.DEFAULT_MODE && isIdentifierStart(input.LA(1))) {
+      int type = matchWord(input, mode);
+      if (type != Token.INVALID_TYPE) return type;
+    }
+    return super.match(input, mode);
+  }
+
+  private int matchWord(CharStream input, int mode) {
+    int length = 0;
+    int hash = 0;
+    int c;
+    while (isIdentifierPart(c = input.LA(length + 1))) {
+      c = fold(c);
+      if (length < MAX_WORD_LENGTH) word[length] = (char) c;
+      hash = hash * MULTIPLIER + c;
+      length++;
+    }
+    // a run that stops at a non-ASCII character is left to the ATN, as
+    // some of those continue an identifier
+    if (c > 0x7F) return Token.INVALID_TYPE;
+
+    int type = ApexLexer.Identifier;
+    int slot = mix(hash) & MASK;
+    if (length <= MAX_WORD_LENGTH && isWord(WORDS[slot], length)) {
+      // may be INVALID_TYPE, where a longer token could match
+      type = TYPES[slot];
+    } else if (isCurrency(input, length)) {
+      type = ApexLexer.IntegralCurrencyLiteral;
+    }
+
+    if (type != Token.INVALID_TYPE) {
+      this.mode = mode;
+      startIndex = input.index();
+      input.seek(startIndex + length);
+      charPositionInLine += length;
+    }
+    return type;
+  }
+
+  private boolean isWord(String keyword, int length) {
+    if (keyword == null || keyword.length() != length) return false;
+    for (int i = 0; i < length; i++) {
+      if (keyword.charAt(i) != word[i]) return false;
+    }
+    return true;
+  }
+
+  // Three letters then digits, a keyword never has this form
+  private static boolean isCurrency(CharStream input, int length) {
+    if (length < 4) return false;
+    for (int i = 0; i < length; i++) {
+      int c = fold(input.LA(i + 1));
+      if (i < 3 ? c < 'a' || c > 'z' : c < '0' || c > '9') return false;
+    }
+    return true;
+  }
+
+  private static boolean isIdentifierStart(int c) {
+    return (
+      (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$'
+    );
+  }
+
+  private static boolean isIdentifierPart(int c) {
+    return isIdentifierStart(c) || (c >= '0' && c <= '9');
+  }
+
+  private static int fold(int c) {
+    return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+  }
+
+  private static int mix(int hash) {
+    return hash ^ (hash >>> 15);
+  }
+
+  private static int hash(String word, int multiplier) {
+    int hash = 0;
+    for (int i = 0; i < word.length(); i++) {
+      hash = hash * multiplier + word.charAt(i);
+    }
+    return hash;
+  }
+
+  // The table of words by slot, or null if two words share a slot
+  private static String[] build(
+    Map<String, Integer> words,
+    int size,
+    int multiplier
+  ) {
+    String[] table = new String[size];
+    for (String word : words.keySet()) {
+      int slot = mix(hash(word, multiplier)) & (size - 1);
+      if (table[slot] != null) return null;
+      table[slot] = word;
+    }
+    return table;
+  }
+
+  /**
+   * Lower case keywords and their token types. Words that also start a longer
+   * token map to {@link Token#INVALID_TYPE}.
+   */
+  static Map<String, Integer> keywords() {
+    Map<String, Integer> words = new TreeMap<>();
+    Map<String, Integer> prefixes = new TreeMap<>();
+    Vocabulary vocabulary = ApexLexer.VOCABULARY;
+    // in declaration order, so the first rule to match a word is kept
+    for (int type = 1; type <= vocabulary.getMaxTokenType(); type++) {
+      String literal = vocabulary.getLiteralName(type);
+      if (literal == null || !isIdentifierStart(literal.charAt(1))) continue;
+
+      String text = literal.substring(1, literal.length() - 1);
+      int run = 0;
+      while (run < text.length() && isIdentifierPart(text.charAt(run))) {
+        run++;
+      }
+      if (run == text.length()) {
+        words.putIfAbsent(text, type);
+      } else {
+        prefixes.put(text.substring(0, run), Token.INVALID_TYPE);
+      }
+    }
+
+    // Rules with alternatives have no literal name
+    words.putIfAbsent("true", ApexLexer.BooleanLiteral);
+    words.putIfAbsent("false", ApexLexer.BooleanLiteral);
+
+    words.putAll(prefixes);
+    return words;
+  }
+}
@@ -0,0 +1,612 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Reports the declarations in a file, types and their members with names,
+ * types, modifiers and annotations, as it is parsed, without building a parse
+ * tree. Only the declarations enclosing the current position are held, so
+ * memory use depends on nesting depth rather than file size.
+ *
+ * <p>The {@code scan} helpers lex without whitespace or comments into a
+ * {@link CompactTokenStream} and skip code bodies with a
+ * {@link SignatureTokenSource}, which is all an outline needs. Declarations
+ * are reported in source order: a type once its name and super types are
+ * known, then its members, followed by {@link Listener#endType}. Events are
+ * reported once, declarations seen before a two-stage parse restarts are not
+ * repeated.
+ */
+public final class ApexOutlineScanner {
+
+  /** The kind of a declaration. */
+  public enum Kind {
+    CLASS,
+    INTERFACE,
+    ENUM,
+    TRIGGER,
+    METHOD,
+    CONSTRUCTOR,
+    PROPERTY,
+    FIELD,
+    ENUM_CONSTANT,
+  }
+
+  /** Receives declarations as they are parsed. */
+  public interface Listener {
+    void declaration(Declaration declaration);
+
+    /** Called after the members of a type have been reported. */
+    default void endType(Declaration type) {}
+  }
+
+  /**
+   * A declared type or member. Text, such as types and modifiers, is as
+   * written in the source with whitespace collapsed.
+   */
+  public static final class Declaration {
+
+    private final Kind kind;
+    private final Declaration parent;
+    private String name;
+    private int line;
+    private int column;
+    private String type;
+    private List<String> modifiers = Collections.emptyList();
+    private List<String> annotations = Collections.emptyList();
+    private List<String> parameters = Collections.emptyList();
+    private List<String> extendsTypes = Collections.emptyList();
+    private List<String> implementsTypes = Collections.emptyList();
+
+    private Declaration(Kind kind, Declaration parent) {
+      this.kind = kind;
+      this.parent = parent;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    /** The name, which may be null when the declaration has syntax errors. */
+    public String getName() {
+      return name;
+    }
+
+    /** Line of the name, from 1. */
+    public int getLine() {
+      return line;
+    }
+
+    /** Column of the name, from 0. */
+    public int getColumn() {
+      return column;
+    }
+
+    /** The enclosing type, or null for a top-level type. */
+    public Declaration getParent() {
+      return parent;
+    }
+
+    /**
+     * The declared type of a field or property, the return type of a method
+     * or the SObject of a trigger, otherwise null.
+     */
+    public String getType() {
+      return type;
+    }
+
+    /** Modifiers other than annotations, such as {@code public}. */
+    public List<String> getModifiers() {
+      return Collections.unmodifiableList(modifiers);
+    }
+
+    /** Annotations with their arguments, such as {@code @IsTest}. */
+    public List<String> getAnnotations() {
+      return Collections.unmodifiableList(annotations);
+    }
+
+    /** Method and constructor parameters as type and name. */
+    public List<String> getParameters() {
+      return Collections.unmodifiableList(parameters);
+    }
+
+    /** The super class of a class or super interfaces of an interface. */
+    public List<String> getExtends() {
+      return Collections.unmodifiableList(extendsTypes);
+    }
+
+    /** Interfaces implemented by a class. */
+    public List<String> getImplements() {
+      return Collections.unmodifiableList(implementsTypes);
+    }
+
+    private boolean isType() {
+      return kind.compareTo(Kind.TRIGGER) <= 0;
+    }
+
+    private Declaration withName(Token token) {
+      Declaration copy = new Declaration(kind, parent);
+      copy.setName(token);
+      copy.type = type;
+      copy.modifiers = modifiers;
+      copy.annotations = annotations;
+      return copy;
+    }
+
+    private void setName(Token token) {
+      name = token.getText();
+      line = token.getLine();
+      column = token.getCharPositionInLine();
+    }
+
+    private static List<String> add(List<String> list, String value) {
+      List<String> result = list.isEmpty() ? new ArrayList<>(2) : list;
+      result.add(value);
+      return result;
+    }
+  }
+
+  private ApexOutlineScanner() {}
+
+  /**
+   * Scans a class file, reporting lexer and parser errors to the given
+   * listener.
+   */
+  public static void scanCompilationUnit(
+    CharStream stream,
+    Listener listener,
+    ApexErrorListener errorListener
+  ) {
+    scan(
+      createParser(stream, errorListener),
+      ApexParser::compilationUnit,
+      listener
+    );
+  }
+
+  /**
+   * Scans a trigger file, reporting lexer and parser errors to the given
+   * listener.
+   */
+  public static void scanTriggerUnit(
+    CharStream stream,
+    Listener listener,
+    ApexErrorListener errorListener
+  ) {
+    scan(
+      createParser(stream, errorListener),
+      ApexParser::triggerUnit,
+      listener
+    );
+  }
+
+  /**
+   * Scans an anonymous Apex script, reporting lexer and parser errors to the
+   * given listener.
+   */
+  public static void scanAnonymousUnit(
+    CharStream stream,
+    Listener listener,
+    ApexErrorListener errorListener
+  ) {
+    scan(
+      createParser(stream, errorListener),
+      ApexParser::anonymousUnit,
+      listener
+    );
+  }
+
+  /**
+   * Scans with a parser created by the caller, which is set to not build a
+   * parse tree for the duration. Parsing uses the two-stage strategy of
+   * {@link ApexParserFactory#parse}.
+   */
+  public static void scan(
+    ApexParser parser,
+    Function<ApexParser, ? extends ParserRuleContext> rule,
+    Listener listener
+  ) {
+    boolean buildParseTree = parser.getBuildParseTree();
+    Collector collector = new Collector(parser, listener);
+    parser.setBuildParseTree(false);
+    parser.addParseListener(collector);
+    try {
+      ApexParserFactory.parse(parser, rule);
+    } finally {
+      parser.removeParseListener(collector);
+      parser.setBuildParseTree(buildParseTree);
+    }
+  }
+
+  private static ApexParser createParser(
+    CharStream stream,
+    ApexErrorListener errorListener
+  ) {
+    ApexLexer lexer = ApexParserFactory.createLexer(
+      stream,
+      ApexParserFactory.Trivia.NONE
+    );
+    lexer.addErrorListener(errorListener);
+    ApexParser parser = ApexParserFactory.createParser(
+      new CompactTokenStream(new SignatureTokenSource(lexer))
+    );
+    parser.addErrorListener(errorListener);
+    return parser;
+  }
+
+  private static final class Collector implements ParseTreeListener {
+
+    private final ApexParser parser;
+    private final Listener listener;
+
+    // Declarations being parsed, innermost first
+    private final Deque<Declaration> open = new ArrayDeque<>();
+    private final Deque<Boolean> reported = new ArrayDeque<>();
+
+    // Modifiers seen before the next declaration
+    private List<String> modifiers = Collections.emptyList();
+    private List<String> annotations = Collections.emptyList();
+    private final List<Token> fieldNames = new ArrayList<>();
+    private String parameterType;
+
+    // Index of the last token covered by a reported event
+    private int position = -1;
+
+    Collector(ApexParser parser, Listener listener) {
+      this.parser = parser;
+      this.listener = listener;
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+      if (ctx.getParent() == null) reset();
+
+      switch (ctx.getRuleIndex()) {
+        case ApexParser.RULE_typeDeclaration:
+        case ApexParser.RULE_classBodyDeclaration:
+        case ApexParser.RULE_triggerBlockMember:
+        case ApexParser.RULE_anonymousBlockMember:
+        case ApexParser.RULE_interfaceMethodDeclaration:
+          modifiers = Collections.emptyList();
+          annotations = Collections.emptyList();
+          break;
+        default:
+          break;
+      }
+
+      switch (ctx.getRuleIndex()) {
+        case ApexParser.RULE_triggerUnit:
+          open(Kind.TRIGGER);
+          break;
+        case ApexParser.RULE_classDeclaration:
+          open(Kind.CLASS);
+          break;
+        case ApexParser.RULE_interfaceDeclaration:
+          open(Kind.INTERFACE);
+          break;
+        case ApexParser.RULE_enumDeclaration:
+          open(Kind.ENUM);
+          break;
+        case ApexParser.RULE_methodDeclaration:
+        case ApexParser.RULE_interfaceMethodDeclaration:
+          open(Kind.METHOD);
+          break;
+        case ApexParser.RULE_constructorDeclaration:
+          open(Kind.CONSTRUCTOR);
+          break;
+        case ApexParser.RULE_propertyDeclaration:
+          open(Kind.PROPERTY);
+          break;
+        case ApexParser.RULE_fieldDeclaration:
+          open(Kind.FIELD);
+          fieldNames.clear();
+          break;
+        case ApexParser.RULE_triggerBlock:
+        case ApexParser.RULE_classBody:
+        case ApexParser.RULE_interfaceBody:
+        case ApexParser.RULE_enumConstants:
+          reportType();
+          break;
+        default:
+          break;
+      }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+      // unwinding from a failed first stage, the parse will be restarted
+      if (
+        ctx.exception != null &&
+        parser.getErrorHandler() instanceof BailErrorStrategy
+      ) {
+        return;
+      }
+
+      ParserRuleContext parent = ctx.getParent();
+      int parentRule = parent != null ? parent.getRuleIndex() : -1;
+      switch (ctx.getRuleIndex()) {
+        case ApexParser.RULE_modifier:
+          addModifier(ctx, parentRule);
+          break;
+        case ApexParser.RULE_id:
+          addId(ctx, parent, parentRule);
+          break;
+        case ApexParser.RULE_qualifiedName:
+          if (parentRule == ApexParser.RULE_constructorDeclaration) {
+            current().setName(ctx.getStart());
+            current().name = text(ctx);
+          }
+          break;
+        case ApexParser.RULE_typeRef:
+          addTypeRef(ctx, parent, parentRule);
+          break;
+        case ApexParser.RULE_triggerUnit:
+        case ApexParser.RULE_classDeclaration:
+        case ApexParser.RULE_interfaceDeclaration:
+        case ApexParser.RULE_enumDeclaration:
+          // types without a body, such as an empty enum, are reported here
+          boolean typeReported = reported.peek();
+          Declaration type = close();
+          if (isNew()) {
+            if (!typeReported) listener.declaration(type);
+            listener.endType(type);
+          }
+          break;
+        case ApexParser.RULE_methodDeclaration:
+        case ApexParser.RULE_interfaceMethodDeclaration:
+        case ApexParser.RULE_constructorDeclaration:
+        case ApexParser.RULE_propertyDeclaration:
+          Declaration member = close();
+          if (member.name != null && isNew()) listener.declaration(member);
+          break;
+        case ApexParser.RULE_fieldDeclaration:
+          Declaration field = close();
+          if (!fieldNames.isEmpty() && isNew()) {
+            for (Token name : fieldNames) {
+              listener.declaration(field.withName(name));
+            }
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+      Token token = node.getSymbol();
+      if (token.getType() != ApexLexer.VOID) return;
+
+      int rule = ((ParserRuleContext) node.getParent()).getRuleIndex();
+      if (
+        rule == ApexParser.RULE_methodDeclaration ||
+        rule == ApexParser.RULE_interfaceMethodDeclaration
+      ) {
+        current().type = token.getText();
+      }
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {}
+
+    private void addModifier(ParserRuleContext ctx, int parentRule) {
+      switch (parentRule) {
+        case ApexParser.RULE_typeDeclaration:
+        case ApexParser.RULE_classBodyDeclaration:
+        case ApexParser.RULE_triggerBlockMember:
+        case ApexParser.RULE_anonymousBlockMember:
+        case ApexParser.RULE_interfaceMethodDeclaration:
+          if (ctx.getStart().getType() == ApexLexer.ATSIGN) {
+            annotations = Declaration.add(annotations, text(ctx));
+          } else {
+            modifiers = Declaration.add(modifiers, text(ctx));
+          }
+          if (parentRule == ApexParser.RULE_interfaceMethodDeclaration) {
+            current().modifiers = modifiers;
+            current().annotations = annotations;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void addId(
+      ParserRuleContext ctx,
+      ParserRuleContext parent,
+      int parentRule
+    ) {
+      switch (parentRule) {
+        case ApexParser.RULE_triggerUnit:
+          // trigger name on object
+          if (current().name == null) current().setName(ctx.getStart());
+          else current().type = text(ctx);
+          break;
+        case ApexParser.RULE_classDeclaration:
+        case ApexParser.RULE_interfaceDeclaration:
+        case ApexParser.RULE_enumDeclaration:
+        case ApexParser.RULE_methodDeclaration:
+        case ApexParser.RULE_interfaceMethodDeclaration:
+        case ApexParser.RULE_propertyDeclaration:
+          current().setName(ctx.getStart());
+          break;
+        case ApexParser.RULE_variableDeclarator:
+          if (
+            parent.getParent().getParent().getRuleIndex() ==
+            ApexParser.RULE_fieldDeclaration
+          ) {
+            fieldNames.add(ctx.getStart());
+          }
+          break;
+        case ApexParser.RULE_formalParameter:
+          if (parameterType != null) {
+            current().parameters =
+              Declaration.add(
+                current().parameters,
+                parameterType + " " + text(ctx)
+              );
+            parameterType = null;
+          }
+          break;
+        case ApexParser.RULE_enumConstants:
+          Declaration constant = new Declaration(
+            Kind.ENUM_CONSTANT,
+            current()
+          );
+          constant.setName(ctx.getStart());
+          if (isNew()) listener.declaration(constant);
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void addTypeRef(
+      ParserRuleContext ctx,
+      ParserRuleContext parent,
+      int parentRule
+    ) {
+      switch (parentRule) {
+        case ApexParser.RULE_classDeclaration:
+          current().extendsTypes = Declaration.add(
+            current().extendsTypes,
+            text(ctx)
+          );
+          break;
+        case ApexParser.RULE_typeList:
+          int owner = parent.getParent().getRuleIndex();
+          if (owner == ApexParser.RULE_classDeclaration) {
+            current().implementsTypes = Declaration.add(
+              current().implementsTypes,
+              text(ctx)
+            );
+          } else if (owner == ApexParser.RULE_interfaceDeclaration) {
+            current().extendsTypes = Declaration.add(
+              current().extendsTypes,
+              text(ctx)
+            );
+          }
+          break;
+        case ApexParser.RULE_methodDeclaration:
+        case ApexParser.RULE_interfaceMethodDeclaration:
+        case ApexParser.RULE_propertyDeclaration:
+        case ApexParser.RULE_fieldDeclaration:
+          current().type = text(ctx);
+          break;
+        case ApexParser.RULE_formalParameter:
+          parameterType = text(ctx);
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void open(Kind kind) {
+      Declaration parent = null;
+      for (Declaration declaration : open) {
+        if (declaration.isType()) {
+          parent = declaration;
+          break;
+        }
+      }
+      Declaration declaration = new Declaration(kind, parent);
+      declaration.modifiers = modifiers;
+      declaration.annotations = annotations;
+      modifiers = Collections.emptyList();
+      annotations = Collections.emptyList();
+      open.push(declaration);
+      reported.push(Boolean.FALSE);
+    }
+
+    private Declaration close() {
+      reported.pop();
+      return open.pop();
+    }
+
+    private Declaration current() {
+      return open.peek();
+    }
+
+    private void reportType() {
+      if (!reported.peek()) {
+        // also marks the type when it was reported before a restart
+        reported.pop();
+        reported.push(Boolean.TRUE);
+        if (isNew()) listener.declaration(current());
+      }
+    }
+
+    // Events are reported in token order, so those already reported before
+    // a restarted parse can be recognised by position
+    private boolean isNew() {
+      Token last = parser.getInputStream().LT(-1);
+      int index = last != null ? last.getTokenIndex() : -1;
+      if (index <= position) return false;
+      position = index;
+      return true;
+    }
+
+    // Start of a parse or a restarted parse
+    private void reset() {
+      open.clear();
+      reported.clear();
+      modifiers = Collections.emptyList();
+      annotations = Collections.emptyList();
+      fieldNames.clear();
+      parameterType = null;
+    }
+
+    private String text(ParserRuleContext ctx) {
+      Token start = ctx.getStart();
+      Token stop = ctx.getStop() != null
+        ? ctx.getStop()
+        : parser.getInputStream().LT(-1);
+      if (stop == null || stop.getStopIndex() < start.getStartIndex()) {
+        return "";
+      }
+      return start
+        .getInputStream()
+        .getText(Interval.of(start.getStartIndex(), stop.getStopIndex()))
+        .replaceAll("\\s+", " ");
+    }
+  }
+}
@@ -0,0 +1,298 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.TokenSource;
+
+/**
+ * Parses on an executor, returning a {@link CompletableFuture} for each
+ * request, for services that parse many independent inputs concurrently.
+ *
+ * <p>The number of parses submitted but not yet complete is limited, submit
+ * waits for one to complete when the limit is reached and {@code trySubmit}
+ * fails fast instead. Completing a future by any means, such as cancelling
+ * it or a timeout, releases its place at once and stops its parse at the next
+ * token, releasing its thread. A parse the executor rejects fails with a
+ * {@link RejectedExecutionException}. Parses dropped by
+ * {@code shutdownNow()} of a caller's executor never run, and their futures
+ * should be cancelled to release their places.
+ *
+ * <p>Parses use the two-stage strategy of {@link ApexParserFactory#parse},
+ * with new recognizers for each request.
+ */
+public final class ApexParseService implements AutoCloseable {
+
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+  private final boolean virtualThreads;
+  private final int maxPending;
+  private final Semaphore permits;
+
+  /**
+   * Creates a service using the given executor, which is not shut down when
+   * the service is closed.
+   *
+   * @param maxPending number of parses that can be submitted and not yet
+   * complete
+   */
+  public ApexParseService(ExecutorService executor, int maxPending) {
+    this(executor, false, false, maxPending);
+  }
+
+  private ApexParseService(
+    ExecutorService executor,
+    boolean ownsExecutor,
+    boolean virtualThreads,
+    int maxPending
+  ) {
+    if (maxPending < 1) {
+      throw new IllegalArgumentException(
+        "maxPending must be positive: " + maxPending
+      );
+    }
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+    this.virtualThreads = virtualThreads;
+    this.maxPending = maxPending;
+    this.permits = new Semaphore(maxPending);
+  }
+
+  /**
+   * Creates a service with its own executor, a thread per parse on Java 21
+   * and later where virtual threads are available, otherwise a pool of
+   * daemon threads, one per processor.
+   */
+  public static ApexParseService create(int maxPending) {
+    ExecutorService executor = newVirtualThreadExecutor();
+    if (executor != null) {
+      return new ApexParseService(executor, true, true, maxPending);
+    }
+    return new ApexParseService(
+      newDaemonPool(Runtime.getRuntime().availableProcessors()),
+      true,
+      false,
+      maxPending
+    );
+  }
+
+  /** True if parses run on virtual threads. */
+  public boolean usesVirtualThreads() {
+    return virtualThreads;
+  }
+
+  public int getMaxPending() {
+    return maxPending;
+  }
+
+  /** Number of parses submitted and not yet complete. */
+  public int getPending() {
+    return maxPending - permits.availablePermits();
+  }
+
+  /**
+   * Submits a parse, waiting while the limit of pending parses is reached.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public <T extends ParserRuleContext> CompletableFuture<
+    ParseResult<T>
+  > submit(CharStream source, Function<ApexParser, T> entryRule)
+    throws InterruptedException {
+    permits.acquire();
+    return start(source, entryRule);
+  }
+
+  /** Submits a parse of a string, as {@link #submit(CharStream, Function)}. */
+  public <T extends ParserRuleContext> CompletableFuture<
+    ParseResult<T>
+  > submit(String source, Function<ApexParser, T> entryRule)
+    throws InterruptedException {
+    return submit(CharStreams.fromString(source), entryRule);
+  }
+
+  /**
+   * Submits a parse if the limit of pending parses has not been reached,
+   * otherwise returns a future that has failed with a
+   * {@link RejectedExecutionException}.
+   */
+  public <T extends ParserRuleContext> CompletableFuture<
+    ParseResult<T>
+  > trySubmit(CharStream source, Function<ApexParser, T> entryRule) {
+    if (!permits.tryAcquire()) {
+      CompletableFuture<ParseResult<T>> rejected = new CompletableFuture<>();
+      rejected.completeExceptionally(
+        new RejectedExecutionException(
+          "Too many pending parses, limit is " + maxPending
+        )
+      );
+      return rejected;
+    }
+    return start(source, entryRule);
+  }
+
+  /**
+   * Shuts down the executor if the service created it. Parses already
+   * submitted are completed.
+   */
+  @Override
+  public void close() {
+    if (ownsExecutor) executor.shutdown();
+  }
+
+  private <T extends ParserRuleContext> CompletableFuture<
+    ParseResult<T>
+  > start(CharStream source, Function<ApexParser, T> entryRule) {
+    CompletableFuture<ParseResult<T>> result = new CompletableFuture<>();
+    AtomicBoolean released = new AtomicBoolean();
+    Runnable release = () -> {
+      if (released.compareAndSet(false, true)) permits.release();
+    };
+    // frees the place of a parse completed before it runs, or never run
+    result.whenComplete((parsed, failure) -> release.run());
+    try {
+      if (executor.isShutdown()) {
+        throw new RejectedExecutionException("Executor has been shut down");
+      }
+      executor.execute(() -> run(source, entryRule, result, release));
+    } catch (RuntimeException ex) {
+      result.completeExceptionally(ex);
+    }
+    return result;
+  }
+
+  private <T extends ParserRuleContext> void run(
+    CharStream source,
+    Function<ApexParser, T> entryRule,
+    CompletableFuture<ParseResult<T>> result,
+    Runnable release
+  ) {
+    ParseResult<T> parsed = null;
+    Throwable failure = null;
+    try {
+      if (result.isDone()) return;
+
+      ParseResult.ErrorCollector errors = new ParseResult.ErrorCollector();
+      ApexLexer lexer = ApexParserFactory.createLexer(source);
+      lexer.addErrorListener(errors);
+      ApexParser parser = ApexParserFactory.createParser(
+        new CancellableTokenStream(lexer, result)
+      );
+      parser.addErrorListener(errors);
+      T tree = ApexParserFactory.parse(parser, entryRule);
+      parsed = new ParseResult<>(tree, errors.errors);
+    } catch (CancellationException ex) {
+      // result was completed elsewhere
+    } catch (Throwable ex) {
+      failure = ex;
+    } finally {
+      // before completing, so callers never see a completed parse as pending
+      release.run();
+    }
+
+    if (parsed != null) {
+      result.complete(parsed);
+    } else if (failure != null) {
+      result.completeExceptionally(failure);
+    }
+  }
+
+  // Executors.newVirtualThreadPerTaskExecutor() when running on Java 21+
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      Method factory = Executors.class.getMethod(
+        "newVirtualThreadPerTaskExecutor"
+      );
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException ex) {
+      return null;
+    }
+  }
+
+  private static ExecutorService newDaemonPool(int threads) {
+    AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+      threads,
+      task -> {
+        Thread thread = new Thread(
+          task,
+          "apex-parse-" + count.incrementAndGet()
+        );
+        thread.setDaemon(true);
+        return thread;
+      }
+    );
+  }
+
+  /**
+   * A token stream that stops the parse reading it, by throwing a
+   * {@link CancellationException}, once the given future is complete. This is
+   * checked as each token is consumed or read from the lexer.
+   */
+  static final class CancellableTokenStream extends CommonTokenStream {
+
+    private final Future<?> future;
+
+    CancellableTokenStream(TokenSource tokenSource, Future<?> future) {
+      super(tokenSource);
+      this.future = future;
+    }
+
+    @Override
+    public void consume() {
+      checkCancelled();
+      super.consume();
+    }
+
+    @Override
+    protected int fetch(int n) {
+      checkCancelled();
+      return super.fetch(n);
+    }
+
+    private void checkCancelled() {
+      if (future.isDone()) {
+        throw new CancellationException("Parse cancelled");
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.function.Function;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+/**
+ * A reusable lexer, token stream and parser for parsing many small inputs,
+ * such as SOQL strings or anonymous blocks, without allocating new
+ * recognizers for each one.
+ *
+ * <p>Use {@link #get()} for a session owned by the current thread, which is
+ * safe to use from a thread pool. A session is reset before each parse and
+ * releases its input and error listener after, so no state is carried
+ * between parses. Sessions are not thread safe, a session created with the
+ * constructor must not be shared between threads.
+ */
+public final class ApexParseSession {
+
+  private static final ThreadLocal<ApexParseSession> SESSIONS =
+    ThreadLocal.withInitial(ApexParseSession::new);
+
+  // Token buffers larger than this are not kept between parses
+  private static final int MAX_RETAINED_TOKENS = 1 << 16;
+
+  private final CharStream empty = CharStreams.fromString("");
+  private final ForwardingErrorListener errorListener =
+    new ForwardingErrorListener();
+  private final ApexLexer lexer;
+  private final ApexParser parser;
+  private CommonTokenStream tokens;
+  private boolean busy = false;
+
+  public ApexParseSession() {
+    lexer = ApexParserFactory.createLexer(empty);
+    lexer.addErrorListener(errorListener);
+    tokens = new CommonTokenStream(lexer);
+    parser = ApexParserFactory.createParser(tokens);
+    parser.addErrorListener(errorListener);
+  }
+
+  /**
+   * The session for the current thread. If that session is in use, for
+   * example when parsing from an error listener, a new session is returned.
+   */
+  public static ApexParseSession get() {
+    ApexParseSession session = SESSIONS.get();
+    return session.busy ? new ApexParseSession() : session;
+  }
+
+  /**
+   * Parses the stream with the given rule, reporting lexer and parser errors
+   * to the listener.
+   *
+   * @see ApexParserFactory#parse(ApexParser, Function)
+   */
+  public <T extends ParserRuleContext> T parse(
+    CharStream stream,
+    Function<ApexParser, T> rule,
+    ApexErrorListener listener
+  ) {
+    if (busy) {
+      throw new IllegalStateException("Session is already parsing");
+    }
+    busy = true;
+    try {
+      reset(stream, listener);
+      return ApexParserFactory.parse(parser, rule);
+    } finally {
+      release();
+      busy = false;
+    }
+  }
+
+  public ApexParser.CompilationUnitContext parseCompilationUnit(
+    CharStream stream,
+    ApexErrorListener listener
+  ) {
+    return parse(stream, ApexParser::compilationUnit, listener);
+  }
+
+  public ApexParser.TriggerUnitContext parseTriggerUnit(
+    CharStream stream,
+    ApexErrorListener listener
+  ) {
+    return parse(stream, ApexParser::triggerUnit, listener);
+  }
+
+  public ApexParser.AnonymousUnitContext parseAnonymousUnit(
+    CharStream stream,
+    ApexErrorListener listener
+  ) {
+    return parse(stream, ApexParser::anonymousUnit, listener);
+  }
+
+  private void reset(CharStream stream, ApexErrorListener listener) {
+    // Pick up a new cache generation if the DFA cache has been cleared
+    ApexDFACache.install(lexer);
+    ApexDFACache.install(parser);
+
+    lexer.setInputStream(stream);
+    tokens.setTokenSource(lexer);
+    parser.setInputStream(tokens);
+    parser.removeParseListeners();
+    parser.setBuildParseTree(true);
+    errorListener.delegate = listener;
+  }
+
+  private void release() {
+    errorListener.delegate = null;
+    lexer.setInputStream(empty);
+    if (tokens.size() > MAX_RETAINED_TOKENS) {
+      tokens = new CommonTokenStream(lexer);
+    } else {
+      tokens.setTokenSource(lexer);
+    }
+    parser.setInputStream(tokens);
+  }
+
+  private static final class ForwardingErrorListener
+    extends ApexErrorListener {
+
+    ApexErrorListener delegate;
+
+    @Override
+    public void syntaxError(
+      Recognizer<?, ?> recognizer,
+      Object offendingSymbol,
+      int line,
+      int charPositionInLine,
+      String msg,
+      RecognitionException e
+    ) {
+      if (delegate != null) {
+        delegate.syntaxError(
+          recognizer,
+          offendingSymbol,
+          line,
+          charPositionInLine,
+          msg,
+          e
+        );
+      }
+    }
+
+    @Override
+    public void apexSyntaxError(int line, int column, String msg) {}
+  }
+}
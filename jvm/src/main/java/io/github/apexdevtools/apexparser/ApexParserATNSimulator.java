@@ -0,0 +1,300 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.BitSet;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.DecisionState;
+import org.antlr.v4.runtime.atn.LookaheadEventInfo;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.ProfilingATNSimulator;
+import org.antlr.v4.runtime.atn.SetTransition;
+import org.antlr.v4.runtime.atn.Transition;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+/**
+ * Parser simulator that resolves the optional type arguments of
+ * {@code typeName} without lookahead.
+ *
+ * <p>SLL prediction does not use the calling context, so on seeing
+ * {@code List<} it must allow for the type being the right operand of an
+ * {@code instanceof} that is followed by a {@code <} comparison. Both readings
+ * stay viable to the end of the enclosing method, hundreds of tokens, before
+ * prediction falls back to full context which then resolves in one token. As
+ * an {@code instanceof} operand is the only type reference that can be
+ * followed by {@code <}, any other {@code typeName} followed by {@code <} must
+ * have type arguments. Those are predicted directly and the rest are left to
+ * normal prediction, so parse trees and errors do not change.
+ *
+ * <p>Token set transitions, such as the keywords allowed as identifiers by
+ * {@code id} and {@code anyId}, are tested against a bitmap rather than by a
+ * binary search of the set's intervals. Prediction makes this test for every
+ * configuration at a set transition when computing a new DFA state, and for
+ * every token of a full context prediction.
+ *
+ * <p>When tracking is enabled for {@link ParseMetrics}, the simulator also
+ * records the longest lookahead and the number of full context predictions.
+ * {@link Profiling} makes the same predictions while collecting ANTLR's
+ * decision profile.
+ */
+final class ApexParserATNSimulator extends ParserATNSimulator {
+
+  private static final BitSet TYPE_ARGUMENT_DECISIONS =
+    typeArgumentDecisions();
+
+  // Token set bitmaps, and their sets, by set transition target state
+  private static final IntervalSet[] SETS = new IntervalSet[
+    ApexParser._ATN.states.size()
+  ];
+  private static final long[][] SET_BITS = buildSetBits();
+
+  private boolean tracking;
+  private int maxLookahead;
+  private int fullContextPredictions;
+
+  ApexParserATNSimulator(
+    ApexParser parser,
+    DFA[] decisionToDFA,
+    PredictionContextCache sharedContextCache
+  ) {
+    super(parser, ApexParser._ATN, decisionToDFA, sharedContextCache);
+  }
+
+  @Override
+  public int adaptivePredict(
+    TokenStream input,
+    int decision,
+    ParserRuleContext outerContext
+  ) {
+    if (predictsTypeArguments(input, decision, outerContext)) return 1;
+    return super.adaptivePredict(input, decision, outerContext);
+  }
+
+  /** Starts recording lookahead and full context predictions. */
+  void startTracking() {
+    tracking = true;
+    maxLookahead = 0;
+    fullContextPredictions = 0;
+  }
+
+  void stopTracking() {
+    tracking = false;
+  }
+
+  int getMaxLookahead() {
+    return maxLookahead;
+  }
+
+  int getFullContextPredictions() {
+    return fullContextPredictions;
+  }
+
+  // Called each time SLL prediction advances the input
+  @Override
+  protected DFAState getExistingTargetState(DFAState previousD, int t) {
+    if (tracking) trackLookahead();
+    return super.getExistingTargetState(previousD, t);
+  }
+
+  // Called each time full context prediction advances the input
+  @Override
+  protected ATNConfigSet computeReachSet(
+    ATNConfigSet closure,
+    int t,
+    boolean fullCtx
+  ) {
+    if (tracking && fullCtx) trackLookahead();
+    return super.computeReachSet(closure, t, fullCtx);
+  }
+
+  @Override
+  protected int execATNWithFullContext(
+    DFA dfa,
+    DFAState D,
+    ATNConfigSet s0,
+    TokenStream input,
+    int startIndex,
+    ParserRuleContext outerContext
+  ) {
+    if (tracking) fullContextPredictions++;
+    return super.execATNWithFullContext(
+      dfa,
+      D,
+      s0,
+      input,
+      startIndex,
+      outerContext
+    );
+  }
+
+  @Override
+  protected ATNState getReachableTarget(Transition trans, int ttype) {
+    long[] bits = setBits(trans, ttype);
+    if (bits == null) return super.getReachableTarget(trans, ttype);
+    return contains(bits, ttype) ? trans.target : null;
+  }
+
+  private void trackLookahead() {
+    maxLookahead = Math.max(maxLookahead, _input.index() - _startIndex + 1);
+  }
+
+  private static boolean predictsTypeArguments(
+    TokenStream input,
+    int decision,
+    ParserRuleContext outerContext
+  ) {
+    return (
+      TYPE_ARGUMENT_DECISIONS.get(decision) &&
+      input.LA(1) == ApexLexer.LT &&
+      !isInstanceOfOperand(outerContext)
+    );
+  }
+
+  // The bitmap for a set transition, or null if the default test is needed
+  private static long[] setBits(Transition trans, int ttype) {
+    if (ttype < 0 || trans.getClass() != SetTransition.class) return null;
+    int target = trans.target.stateNumber;
+    return SETS[target] == ((SetTransition) trans).set
+      ? SET_BITS[target]
+      : null;
+  }
+
+  private static boolean contains(long[] bits, int ttype) {
+    int word = ttype >> 6;
+    return word < bits.length && (bits[word] & (1L << ttype)) != 0;
+  }
+
+  private static boolean isInstanceOfOperand(ParserRuleContext typeName) {
+    ParserRuleContext typeRef = typeName == null ? null : typeName.getParent();
+    return (
+      typeRef == null ||
+      typeRef.getParent() == null ||
+      typeRef.getParent() instanceof ApexParser.InstanceOfExpressionContext
+    );
+  }
+
+  // Bitmaps for set transitions with a target no other set transition has
+  private static long[][] buildSetBits() {
+    ATN atn = ApexParser._ATN;
+    long[][] bits = new long[atn.states.size()][];
+    BitSet shared = new BitSet();
+    for (ATNState state : atn.states) {
+      if (state == null) continue;
+      for (Transition transition : state.getTransitions()) {
+        if (transition.getClass() != SetTransition.class) continue;
+        int target = transition.target.stateNumber;
+        if (SETS[target] != null) shared.set(target);
+        IntervalSet set = ((SetTransition) transition).set;
+        SETS[target] = set;
+        bits[target] = new long[(Math.max(set.getMaxElement(), 0) >> 6) + 1];
+        for (int symbol : set.toArray()) {
+          if (symbol >= 0) bits[target][symbol >> 6] |= 1L << symbol;
+        }
+      }
+    }
+    for (int i = shared.nextSetBit(0); i >= 0; i = shared.nextSetBit(i + 1)) {
+      SETS[i] = null;
+      bits[i] = null;
+    }
+    return bits;
+  }
+
+  // Decisions in typeName where the first alternative is typeArguments
+  private static BitSet typeArgumentDecisions() {
+    ATN atn = ApexParser._ATN;
+    IntervalSet typeArguments = IntervalSet.of(ApexLexer.LT);
+    BitSet decisions = new BitSet();
+    for (int i = 0; i < atn.getNumberOfDecisions(); i++) {
+      DecisionState state = atn.getDecisionState(i);
+      if (
+        state.ruleIndex == ApexParser.RULE_typeName &&
+        atn.nextTokens(state.transition(0).target).equals(typeArguments)
+      ) {
+        decisions.set(i);
+      }
+    }
+    return decisions;
+  }
+
+  /**
+   * A {@link ProfilingATNSimulator} with the same predictions, for use in
+   * place of {@link org.antlr.v4.runtime.Parser#setProfile}. Type arguments
+   * that are predicted directly are recorded as one token of SLL lookahead.
+   */
+  static final class Profiling extends ProfilingATNSimulator {
+
+    Profiling(ApexParser parser) {
+      super(parser);
+    }
+
+    @Override
+    public int adaptivePredict(
+      TokenStream input,
+      int decision,
+      ParserRuleContext outerContext
+    ) {
+      if (!predictsTypeArguments(input, decision, outerContext)) {
+        return super.adaptivePredict(input, decision, outerContext);
+      }
+
+      DecisionInfo info = decisions[decision];
+      info.invocations++;
+      info.SLL_TotalLook++;
+      info.SLL_MinLook = 1;
+      if (info.SLL_MaxLook == 0) {
+        int index = input.index();
+        info.SLL_MaxLook = 1;
+        info.SLL_MaxLookEvent = new LookaheadEventInfo(
+          decision,
+          null,
+          1,
+          input,
+          index,
+          index,
+          false
+        );
+      }
+      return 1;
+    }
+
+    @Override
+    protected ATNState getReachableTarget(Transition trans, int ttype) {
+      long[] bits = setBits(trans, ttype);
+      if (bits == null) return super.getReachableTarget(trans, ttype);
+      return contains(bits, ttype) ? trans.target : null;
+    }
+  }
+}
@@ -27,11 +27,54 @@
 */
 package io.github.apexdevtools.apexparser;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BufferedTokenStream;
 import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.WritableToken;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
 
 public final class ApexParserFactory {
 
+  private static final String[] WARM_UP_RESOURCES = new String[] {
+    "warmup/Warmup.cls",
+    "warmup/Warmup.trigger",
+    "warmup/Warmup.apex",
+    "warmup/WarmupSosl.txt",
+    "warmup/WarmupSoqlUnit.txt",
+    "warmup/WarmupSoslUnit.txt",
+  };
+
+  private static final List<
+    Function<ApexParser, ? extends ParserRuleContext>
+  > WARM_UP_RULES = Arrays.asList(
+    ApexParser::compilationUnit,
+    ApexParser::triggerUnit,
+    ApexParser::anonymousUnit,
+    ApexParser::soslLiteralAlt,
+    ApexParser::soqlUnit,
+    ApexParser::soslUnit
+  );
+
   private ApexParserFactory() {}
 
   public static ApexParser createParser(CharStream stream) {
@@ -39,7 +82,16 @@ public final class ApexParserFactory {
   }
 
   public static ApexParser createParser(CommonTokenStream tokenStream) {
+    return createParser((TokenStream) tokenStream);
+  }
+
+  /**
+   * Creates a parser over any token stream, such as a
+   * {@link CompactTokenStream}.
+   */
+  public static ApexParser createParser(TokenStream tokenStream) {
     ApexParser parser = new ApexParser(tokenStream);
+    ApexDFACache.install(parser);
 
     // always remove default console listener
     parser.removeErrorListeners();
@@ -50,8 +102,45 @@ public final class ApexParserFactory {
     return new CommonTokenStream(createLexer(stream));
   }
 
+  /**
+   * Creates a {@link CompactTokenStream}, which holds tokens in primitive
+   * arrays rather than as token objects.
+   */
+  public static CompactTokenStream createCompactTokenStream(
+    CharStream stream
+  ) {
+    return new CompactTokenStream(createLexer(stream));
+  }
+
   public static ApexLexer createLexer(CharStream stream) {
-    ApexLexer lexer = new ApexLexer(stream);
+    return createLexer(stream, Trivia.ALL);
+  }
+
+  /**
+   * Creates a lexer that emits only the given kinds of whitespace and comment
+   * tokens. Skipped tokens are never created, so consumers that do not use
+   * them avoid the allocation, positions of other tokens are unaffected.
+   */
+  public static ApexLexer createLexer(CharStream stream, Trivia trivia) {
+    ApexLexer lexer = trivia == Trivia.ALL
+      ? new ApexLexer(stream)
+      : new TriviaLexer(stream, trivia);
+    ApexDFACache.install(lexer);
+
+    // always remove default console listener
+    lexer.removeErrorListeners();
+    return lexer;
+  }
+
+  /**
+   * Creates a lexer for standalone SOQL and SOSL strings, without enclosing
+   * brackets. A search that starts with {@code FIND 'term'} or
+   * {@code FIND {term}} is lexed as a single {@code FindLiteral} or
+   * {@code FindLiteralAlt} token, other input is lexed as Apex.
+   */
+  public static ApexLexer createQueryLexer(CharStream stream) {
+    ApexLexer lexer = new QueryLexer(stream);
+    ApexDFACache.install(lexer);
 
     // always remove default console listener
     lexer.removeErrorListeners();
@@ -69,13 +158,327 @@ public final class ApexParserFactory {
     CharStream stream,
     ApexErrorListener errorListener
   ) {
-    ApexLexer lexer = createLexer(stream);
+    return createLexerAndParser(createLexer(stream), errorListener);
+  }
+
+  /**
+   * Creates a lexer and parser pair for standalone SOQL and SOSL strings, as
+   * {@link #createLexerAndParser} but using {@link #createQueryLexer}.
+   */
+  public static LexerAndParser createQueryLexerAndParser(
+    CharStream stream,
+    ApexErrorListener errorListener
+  ) {
+    return createLexerAndParser(createQueryLexer(stream), errorListener);
+  }
+
+  private static LexerAndParser createLexerAndParser(
+    ApexLexer lexer,
+    ApexErrorListener errorListener
+  ) {
     lexer.addErrorListener(errorListener);
     ApexParser parser = createParser(new CommonTokenStream(lexer));
     parser.addErrorListener(errorListener);
     return new LexerAndParser(lexer, parser);
   }
 
+  /**
+   * Creates a lexer and parser pair for parsing signatures only, as
+   * {@link #createLexerAndParser} but with tokens filtered through a
+   * {@link SignatureTokenSource}. Bodies appear as empty blocks in the parse
+   * tree and can be parsed later with {@link #parseBody}.
+   */
+  public static LexerAndParser createSignatureLexerAndParser(
+    CharStream stream,
+    ApexErrorListener errorListener
+  ) {
+    ApexLexer lexer = createLexer(stream);
+    lexer.addErrorListener(errorListener);
+    ApexParser parser = createParser(
+      new CommonTokenStream(new SignatureTokenSource(lexer))
+    );
+    parser.addErrorListener(errorListener);
+    return new LexerAndParser(lexer, parser);
+  }
+
+  /**
+   * Parses a body skipped by a signature parse, reusing the parser and its
+   * token stream. The body tokens are moved back to the default channel and
+   * the {@code block} rule is run from the start of the given block, so
+   * token indexes in the result match the original tree. The result is not
+   * attached to the original tree.
+   *
+   * <p>The parser must not be in use, bodies cannot be parsed concurrently
+   * from the same parser.
+   */
+  public static ApexParser.BlockContext parseBody(
+    ApexParser parser,
+    ApexParser.BlockContext block
+  ) {
+    BufferedTokenStream tokens = (BufferedTokenStream) parser.getInputStream();
+    int start = block.getStart().getTokenIndex();
+    int stop = block.getStop().getTokenIndex();
+    for (int i = start; i <= stop; i++) {
+      Token token = tokens.get(i);
+      if (token.getChannel() == SignatureTokenSource.BODY_CHANNEL) {
+        ((WritableToken) token).setChannel(Token.DEFAULT_CHANNEL);
+      }
+    }
+
+    parser.reset();
+    tokens.seek(start);
+    return parse(parser, ApexParser::block);
+  }
+
+  /**
+   * Parses a class file, reporting lexer and parser errors to the given
+   * listener.
+   *
+   * @see #parse(ApexParser, Function)
+   */
+  public static ApexParser.CompilationUnitContext parseCompilationUnit(
+    CharStream stream,
+    ApexErrorListener errorListener
+  ) {
+    return parse(
+      createLexerAndParser(stream, errorListener).getParser(),
+      ApexParser::compilationUnit
+    );
+  }
+
+  /**
+   * Parses a trigger file, reporting lexer and parser errors to the given
+   * listener.
+   *
+   * @see #parse(ApexParser, Function)
+   */
+  public static ApexParser.TriggerUnitContext parseTriggerUnit(
+    CharStream stream,
+    ApexErrorListener errorListener
+  ) {
+    return parse(
+      createLexerAndParser(stream, errorListener).getParser(),
+      ApexParser::triggerUnit
+    );
+  }
+
+  /**
+   * Parses an anonymous Apex script, reporting lexer and parser errors to the
+   * given listener.
+   *
+   * @see #parse(ApexParser, Function)
+   */
+  public static ApexParser.AnonymousUnitContext parseAnonymousUnit(
+    CharStream stream,
+    ApexErrorListener errorListener
+  ) {
+    return parse(
+      createLexerAndParser(stream, errorListener).getParser(),
+      ApexParser::anonymousUnit
+    );
+  }
+
+  /**
+   * Parses a standalone SOQL query, such as {@code SELECT Id FROM Account},
+   * reporting lexer and parser errors to the given listener.
+   *
+   * @see #parse(ApexParser, Function)
+   */
+  public static ApexParser.SoqlUnitContext parseSoqlUnit(
+    CharStream stream,
+    ApexErrorListener errorListener
+  ) {
+    return parse(
+      createQueryLexerAndParser(stream, errorListener).getParser(),
+      ApexParser::soqlUnit
+    );
+  }
+
+  /**
+   * Parses a standalone SOSL search, such as
+   * {@code FIND {Acme} RETURNING Account}, reporting lexer and parser errors
+   * to the given listener.
+   *
+   * @see #parse(ApexParser, Function)
+   */
+  public static ApexParser.SoslUnitContext parseSoslUnit(
+    CharStream stream,
+    ApexErrorListener errorListener
+  ) {
+    return parse(
+      createQueryLexerAndParser(stream, errorListener).getParser(),
+      ApexParser::soslUnit
+    );
+  }
+
+  /**
+   * Parses from the current token stream position with the given rule, using
+   * the two-stage strategy recommended for ANTLR 4. The first attempt uses
+   * faster SLL prediction and bails out on the first syntax error, this only
+   * fails for invalid input or the rare input that needs full LL context. On
+   * failure the token stream is rewound and the rule is re-run in LL mode
+   * with the parser's own error strategy.
+   *
+   * <p>Error listeners attached to the parser are detached for the first
+   * attempt, so they receive the same errors as a plain LL parse. Lexer
+   * errors are reported once, as tokens are buffered between attempts.
+   * Parse listeners are not detached and will see events from both attempts.
+   */
+  public static <T extends ParserRuleContext> T parse(
+    ApexParser parser,
+    Function<ApexParser, T> rule
+  ) {
+    return parseTwoStage(parser, rule, null);
+  }
+
+  /**
+   * Parses as {@link #parse(ApexParser, Function)}, reporting
+   * {@link ParseMetrics} for the parse to the given listener. Metrics are
+   * reported even if the parse throws. Collecting them adds a walk of the
+   * tree to count nodes, and tokens are read before parsing, so lexer errors
+   * are reported before parser errors.
+   */
+  public static <T extends ParserRuleContext> T parse(
+    ApexParser parser,
+    Function<ApexParser, T> rule,
+    ParseMetrics.Listener metricsListener
+  ) {
+    TokenStream tokens = parser.getInputStream();
+    TokenSource source = tokens.getTokenSource();
+    Lexer lexer = source instanceof Lexer ? (Lexer) source : null;
+    ParserATNSimulator interpreter = parser.getInterpreter();
+    ApexParserATNSimulator tracker =
+      interpreter instanceof ApexParserATNSimulator
+        ? (ApexParserATNSimulator) interpreter
+        : null;
+    ParseMetrics.Recorder recorder = new ParseMetrics.Recorder();
+
+    if (lexer != null) lexer.addErrorListener(recorder);
+    parser.addErrorListener(recorder);
+    if (tracker != null) tracker.startTracking();
+    long start = System.nanoTime();
+    long lexed = start;
+    T tree = null;
+    try {
+      fill(tokens);
+      lexed = System.nanoTime();
+      tree = parseTwoStage(parser, rule, recorder);
+      return tree;
+    } finally {
+      long parsed = System.nanoTime();
+      if (lexer != null) lexer.removeErrorListener(recorder);
+      parser.removeErrorListener(recorder);
+      if (tracker != null) tracker.stopTracking();
+      metricsListener.parsed(
+        new ParseMetrics(
+          lexed - start,
+          parsed - lexed,
+          tokens.size(),
+          ParseMetrics.countNodes(tree),
+          recorder.fallback,
+          tracker != null ? tracker.getFullContextPredictions() : 0,
+          recorder.errorCount,
+          tracker != null ? tracker.getMaxLookahead() : -1
+        )
+      );
+    }
+  }
+
+  private static void fill(TokenStream tokens) {
+    if (tokens instanceof BufferedTokenStream) {
+      ((BufferedTokenStream) tokens).fill();
+    } else if (tokens instanceof CompactTokenStream) {
+      ((CompactTokenStream) tokens).fill();
+    }
+  }
+
+  private static <T extends ParserRuleContext> T parseTwoStage(
+    ApexParser parser,
+    Function<ApexParser, T> rule,
+    ParseMetrics.Recorder recorder
+  ) {
+    TokenStream tokens = parser.getInputStream();
+    // index is -1 until the stream is first read
+    int start = Math.max(tokens.index(), 0);
+    ParserATNSimulator interpreter = parser.getInterpreter();
+    PredictionMode mode = interpreter.getPredictionMode();
+    ANTLRErrorStrategy errorHandler = parser.getErrorHandler();
+    List<ANTLRErrorListener> listeners = new ArrayList<>(
+      parser.getErrorListeners()
+    );
+
+    parser.removeErrorListeners();
+    parser.setErrorHandler(new BailErrorStrategy());
+    interpreter.setPredictionMode(PredictionMode.SLL);
+    try {
+      return rule.apply(parser);
+    } catch (ParseCancellationException ex) {
+      if (recorder != null) recorder.fallback = true;
+      parser.reset();
+      tokens.seek(start);
+      parser.setErrorHandler(errorHandler);
+      listeners.forEach(parser::addErrorListener);
+      interpreter.setPredictionMode(PredictionMode.LL);
+      return rule.apply(parser);
+    } finally {
+      if (parser.getErrorHandler() != errorHandler) {
+        parser.setErrorHandler(errorHandler);
+        listeners.forEach(parser::addErrorListener);
+      }
+      interpreter.setPredictionMode(mode);
+    }
+  }
+
+  /**
+   * Populates the shared DFA caches by parsing a bundled corpus that covers
+   * every parser rule. Long running processes can call this once at startup,
+   * or after {@link ApexDFACache#clear()}, so that the first files parsed do
+   * not pay the full cost of building predictions. Warming up takes a similar
+   * time to parsing a few large classes, so it does not help one-off parses.
+   *
+   * <p>The DFA cannot be persisted between processes, its states reference
+   * ATN configurations that the ANTLR runtime has no way to serialize.
+   */
+  public static void warmUp() {
+    warmUp(null);
+  }
+
+  static void warmUp(ParseTreeListener listener) {
+    for (int i = 0; i < WARM_UP_RESOURCES.length; i++) {
+      // The query lexer only differs for standalone SOSL
+      ApexParser parser = createParser(
+        new CommonTokenStream(
+          createQueryLexer(readWarmUpResource(WARM_UP_RESOURCES[i]))
+        )
+      );
+      if (listener != null) {
+        parser.addParseListener(listener);
+      }
+      parse(parser, WARM_UP_RULES.get(i));
+    }
+  }
+
+  private static CharStream readWarmUpResource(String name) {
+    try (InputStream in = ApexParserFactory.class.getResourceAsStream(name)) {
+      if (in == null) {
+        throw new IllegalStateException("Missing warm-up resource " + name);
+      }
+      return CharStreams.fromStream(in, StandardCharsets.UTF_8);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /** Whitespace and comment tokens to emit from a lexer. */
+  public enum Trivia {
+    /** All tokens, on {@code WHITESPACE_CHANNEL} and {@code COMMENT_CHANNEL}. */
+    ALL,
+    /** Only {@code DOC_COMMENT} tokens, on {@code COMMENT_CHANNEL}. */
+    DOC_COMMENTS,
+    /** No whitespace or comment tokens. */
+    NONE,
+  }
+
   /** Holder for a paired {@link ApexLexer} and {@link ApexParser}. */
   public static final class LexerAndParser {
 
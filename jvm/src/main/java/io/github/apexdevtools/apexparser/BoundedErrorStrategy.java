@@ -0,0 +1,260 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.IntervalSet;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * An error strategy that limits the work done on badly malformed input.
+ *
+ * <p>A parse is stopped when more than a maximum number of errors would be
+ * reported, when error recovery has discarded more than a budget of tokens,
+ * or when a time budget has passed. Use {@link #parse} to run a rule with the
+ * strategy, it returns the tree built so far when the parse is stopped and
+ * {@link #isTruncated()} is then true. Limits default to none, so until one is
+ * set this behaves as {@link DefaultErrorStrategy} apart from recovery.
+ *
+ * <p>Recovery also re-synchronizes at {@code ;}, {@code }} and the tokens
+ * that start a member declaration, rather than only the tokens that can
+ * follow the rules being parsed, so that a damaged member does not cause the
+ * rest of a class to be skipped a token at a time.
+ *
+ * <p>A strategy holds the state of one parse, so may be reused between
+ * parses but not shared by parsers running concurrently.
+ */
+public final class BoundedErrorStrategy extends DefaultErrorStrategy {
+
+  /** The limit that stopped a parse. */
+  public enum Limit {
+    ERRORS,
+    RECOVERY_TOKENS,
+    TIME,
+  }
+
+  private static final IntervalSet SYNC_TOKENS = new IntervalSet(
+    ApexLexer.SEMI,
+    ApexLexer.RBRACE,
+    ApexLexer.ATSIGN,
+    ApexLexer.GLOBAL,
+    ApexLexer.PUBLIC,
+    ApexLexer.PROTECTED,
+    ApexLexer.PRIVATE,
+    ApexLexer.TRANSIENT,
+    ApexLexer.STATIC,
+    ApexLexer.ABSTRACT,
+    ApexLexer.FINAL,
+    ApexLexer.WEBSERVICE,
+    ApexLexer.OVERRIDE,
+    ApexLexer.VIRTUAL,
+    ApexLexer.TESTMETHOD,
+    ApexLexer.CLASS,
+    ApexLexer.INTERFACE,
+    ApexLexer.ENUM
+  );
+
+  private int maxErrors = Integer.MAX_VALUE;
+  private int maxRecoveryTokens = Integer.MAX_VALUE;
+  private long timeoutNanos = Long.MAX_VALUE;
+
+  private long startNanos;
+  private int recoveryTokens;
+  private Limit limit;
+  private ParserRuleContext partialTree;
+
+  /**
+   * Sets the number of errors that may be reported, the parse is stopped
+   * when another would be reported.
+   */
+  public BoundedErrorStrategy setMaxErrors(int maxErrors) {
+    this.maxErrors = Math.max(maxErrors, 0);
+    return this;
+  }
+
+  /**
+   * Sets the number of tokens that error recovery may discard before the
+   * parse is stopped.
+   */
+  public BoundedErrorStrategy setMaxRecoveryTokens(int maxRecoveryTokens) {
+    this.maxRecoveryTokens = Math.max(maxRecoveryTokens, 0);
+    return this;
+  }
+
+  /**
+   * Sets the time a parse may take. With {@link #parse} this is measured from
+   * the start of the call, so includes the SLL stage, though the limit is only
+   * checked once parsing falls back to LL. When the strategy is set on a
+   * parser directly, it is measured from the first rule entered after
+   * {@link #reset}.
+   */
+  public BoundedErrorStrategy setTimeout(long timeout, TimeUnit unit) {
+    this.timeoutNanos = Math.max(unit.toNanos(timeout), 0);
+    return this;
+  }
+
+  /** True if the last parse was stopped by a limit. */
+  public boolean isTruncated() {
+    return limit != null;
+  }
+
+  /** The limit that stopped the last parse, or null if it completed. */
+  public Limit getLimit() {
+    return limit;
+  }
+
+  /**
+   * Parses with the given rule using this strategy, with the two-stage
+   * strategy of {@link ApexParserFactory#parse}. If the parse is stopped by a
+   * limit, the partially built tree is returned and {@link #isTruncated()} is
+   * true. Rule contexts in a partial tree end at the last token consumed.
+   */
+  public <T extends ParserRuleContext> T parse(
+    ApexParser parser,
+    Function<ApexParser, T> rule
+  ) {
+    return parse(parser, rule, null);
+  }
+
+  /**
+   * Parses as {@link #parse(ApexParser, Function)}, reporting
+   * {@link ParseMetrics} to the given listener if it is not null. A
+   * truncated parse is reported without a node count.
+   */
+  public <T extends ParserRuleContext> T parse(
+    ApexParser parser,
+    Function<ApexParser, T> rule,
+    ParseMetrics.Listener metricsListener
+  ) {
+    parser.setErrorHandler(this);
+    reset(parser);
+    // the SLL stage uses another strategy, so start timing here
+    startNanos = System.nanoTime();
+    try {
+      return metricsListener == null
+        ? ApexParserFactory.parse(parser, rule)
+        : ApexParserFactory.parse(parser, rule, metricsListener);
+    } catch (TruncatedException ex) {
+      @SuppressWarnings("unchecked")
+      T root = (T) partialTree;
+      return root;
+    }
+  }
+
+  @Override
+  public void reset(Parser recognizer) {
+    super.reset(recognizer);
+    startNanos = 0;
+    recoveryTokens = 0;
+    limit = null;
+    partialTree = null;
+  }
+
+  @Override
+  public void sync(Parser recognizer) throws RecognitionException {
+    checkTime(recognizer);
+    int start = recognizer.getInputStream().index();
+    try {
+      super.sync(recognizer);
+    } finally {
+      countRecovered(recognizer, start);
+    }
+  }
+
+  @Override
+  public void recover(Parser recognizer, RecognitionException e) {
+    checkTime(recognizer);
+    int start = recognizer.getInputStream().index();
+    super.recover(recognizer, e);
+    countRecovered(recognizer, start);
+  }
+
+  @Override
+  public Token recoverInline(Parser recognizer) throws RecognitionException {
+    int start = recognizer.getInputStream().index();
+    try {
+      return super.recoverInline(recognizer);
+    } finally {
+      countRecovered(recognizer, start);
+    }
+  }
+
+  @Override
+  protected void beginErrorCondition(Parser recognizer) {
+    if (recognizer.getNumberOfSyntaxErrors() >= maxErrors) {
+      truncate(recognizer, Limit.ERRORS);
+    }
+    super.beginErrorCondition(recognizer);
+  }
+
+  @Override
+  protected IntervalSet getErrorRecoverySet(Parser recognizer) {
+    IntervalSet set = super.getErrorRecoverySet(recognizer);
+    set.addAll(SYNC_TOKENS);
+    return set;
+  }
+
+  private void checkTime(Parser recognizer) {
+    long now = System.nanoTime();
+    if (startNanos == 0) {
+      startNanos = now;
+    } else if (now - startNanos > timeoutNanos) {
+      truncate(recognizer, Limit.TIME);
+    }
+  }
+
+  private void countRecovered(Parser recognizer, int start) {
+    recoveryTokens += recognizer.getInputStream().index() - start;
+    if (recoveryTokens > maxRecoveryTokens) {
+      truncate(recognizer, Limit.RECOVERY_TOKENS);
+    }
+  }
+
+  private void truncate(Parser recognizer, Limit limit) {
+    ParserRuleContext root = recognizer.getContext();
+    while (root.getParent() != null) {
+      root = root.getParent();
+    }
+    this.limit = limit;
+    this.partialTree = root;
+    throw new TruncatedException();
+  }
+
+  // Not a RecognitionException, so it is not caught by generated rules
+  private static final class TruncatedException
+    extends ParseCancellationException {
+
+    private static final long serialVersionUID = 1L;
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * A {@link CharStream} over ASCII source held in a {@link ByteBuffer}, one byte
+ * per character. Large files are memory mapped, so the source text is not
+ * copied onto the heap at all; only the text of tokens is.
+ *
+ * <p>Use the {@code from} methods rather than constructing directly. These
+ * check that the content is ASCII and otherwise fall back to decoding UTF-8
+ * with {@link CharStreams}, which replaces malformed input in the same way as
+ * {@link CharStreams#fromPath(Path)}.
+ */
+public final class ByteBufferCharStream implements CharStream {
+
+  /** Files at least this size are memory mapped rather than read. */
+  public static final long DEFAULT_MAP_THRESHOLD = 1 << 20;
+
+  private final ByteBuffer buffer;
+  private final int size;
+  private final String name;
+  private int position;
+
+  private ByteBufferCharStream(ByteBuffer buffer, String name) {
+    this.buffer = buffer;
+    this.size = buffer.limit();
+    this.name = name;
+  }
+
+  /**
+   * Creates a stream for a UTF-8 encoded file, memory mapping it if it is
+   * larger than {@link #DEFAULT_MAP_THRESHOLD}.
+   */
+  public static CharStream fromPath(Path path) throws IOException {
+    return fromPath(path, DEFAULT_MAP_THRESHOLD);
+  }
+
+  /**
+   * Creates a stream for a UTF-8 encoded file, memory mapping it if it is at
+   * least {@code mapThreshold} bytes. A mapped file stays open until the
+   * stream is garbage collected.
+   */
+  public static CharStream fromPath(Path path, long mapThreshold)
+    throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long length = channel.size();
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("File too large to parse: " + path);
+      }
+
+      ByteBuffer buffer;
+      if (length >= mapThreshold && length > 0) {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+      } else {
+        buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+        buffer.flip();
+      }
+      return fromBuffer(buffer, path.toString());
+    }
+  }
+
+  /** Creates a stream for UTF-8 encoded content. */
+  public static CharStream fromBytes(byte[] content, String sourceName)
+    throws IOException {
+    return fromBuffer(ByteBuffer.wrap(content), sourceName);
+  }
+
+  /**
+   * Creates a stream for UTF-8 encoded content between the position and limit
+   * of the buffer. The buffer must not be modified while the stream is in
+   * use.
+   */
+  public static CharStream fromBuffer(ByteBuffer buffer, String sourceName)
+    throws IOException {
+    ByteBuffer content = buffer.slice();
+    if (isAscii(content)) {
+      return new ByteBufferCharStream(content, sourceName);
+    }
+
+    if (content.hasArray()) {
+      return decode(
+        new ByteArrayInputStream(
+          content.array(),
+          content.arrayOffset(),
+          content.remaining()
+        ),
+        sourceName,
+        content.remaining()
+      );
+    }
+    byte[] bytes = new byte[content.remaining()];
+    content.duplicate().get(bytes);
+    return decode(new ByteArrayInputStream(bytes), sourceName, bytes.length);
+  }
+
+  private static CharStream decode(
+    ByteArrayInputStream in,
+    String sourceName,
+    long size
+  ) throws IOException {
+    return CharStreams.fromChannel(
+      Channels.newChannel(in),
+      StandardCharsets.UTF_8,
+      4096,
+      CodingErrorAction.REPLACE,
+      sourceName,
+      size
+    );
+  }
+
+  private static boolean isAscii(ByteBuffer buffer) {
+    int limit = buffer.limit();
+    int i = 0;
+    // check 8 bytes at a time for any high bits
+    for (; i + 8 <= limit; i += 8) {
+      if ((buffer.getLong(i) & 0x8080808080808080L) != 0) return false;
+    }
+    for (; i < limit; i++) {
+      if (buffer.get(i) < 0) return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void consume() {
+    if (size - position == 0) {
+      throw new IllegalStateException("cannot consume EOF");
+    }
+    position++;
+  }
+
+  @Override
+  public int LA(int i) {
+    int offset;
+    if (i > 0) {
+      offset = position + i - 1;
+      if (offset >= size) return IntStream.EOF;
+    } else if (i < 0) {
+      offset = position + i;
+      if (offset < 0) return IntStream.EOF;
+    } else {
+      // undefined
+      return 0;
+    }
+    return buffer.get(offset);
+  }
+
+  /** mark/release do nothing, the whole buffer is available */
+  @Override
+  public int mark() {
+    return -1;
+  }
+
+  @Override
+  public void release(int marker) {}
+
+  @Override
+  public int index() {
+    return position;
+  }
+
+  @Override
+  public void seek(int index) {
+    position = index;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String getSourceName() {
+    if (name == null || name.isEmpty()) {
+      return UNKNOWN_SOURCE_NAME;
+    }
+    return name;
+  }
+
+  @Override
+  public String getText(Interval interval) {
+    int start = Math.min(interval.a, size);
+    int length = Math.min(interval.b - interval.a + 1, size - start);
+    if (length <= 0) return "";
+
+    byte[] bytes = new byte[length];
+    ByteBuffer view = buffer.duplicate();
+    view.position(start);
+    view.get(bytes);
+    return new String(bytes, StandardCharsets.ISO_8859_1);
+  }
+
+  @Override
+  public String toString() {
+    return getText(Interval.of(0, size - 1));
+  }
+}
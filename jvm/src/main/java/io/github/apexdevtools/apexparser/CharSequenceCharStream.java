@@ -0,0 +1,171 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * A {@link CharStream} over a range of a {@link CharSequence}, such as one
+ * source in a larger buffer of concatenated sources. The text is not copied,
+ * unlike {@link CharStreams#fromString}, which holds each character as an
+ * int; only the text of tokens is.
+ *
+ * <p>Indexes, lines and columns are relative to the start of the range. Use
+ * the {@code from} methods rather than constructing directly. Ranges that
+ * contain surrogate pairs are copied with {@link CharStreams}, so characters
+ * outside the Basic Multilingual Plane are still read as single code points.
+ */
+public final class CharSequenceCharStream implements CharStream {
+
+  private final CharSequence text;
+  private final int offset;
+  private final int size;
+  private final String name;
+  private int position;
+
+  private CharSequenceCharStream(
+    CharSequence text,
+    int offset,
+    int size,
+    String name
+  ) {
+    this.text = text;
+    this.offset = offset;
+    this.size = size;
+    this.name = name;
+  }
+
+  /** Creates a stream for all of the text. */
+  public static CharStream fromCharSequence(
+    CharSequence text,
+    String sourceName
+  ) {
+    return fromRange(text, 0, text.length(), sourceName);
+  }
+
+  /**
+   * Creates a stream for the text from {@code start}, inclusive, to
+   * {@code end}, exclusive. The text must not be modified while the stream is
+   * in use.
+   */
+  public static CharStream fromRange(
+    CharSequence text,
+    int start,
+    int end,
+    String sourceName
+  ) {
+    if (start < 0 || end < start || end > text.length()) {
+      throw new IndexOutOfBoundsException(
+        "Range " + start + " to " + end + " of length " + text.length()
+      );
+    }
+    for (int i = start; i < end; i++) {
+      if (Character.isSurrogate(text.charAt(i))) {
+        return CharStreams.fromString(
+          text.subSequence(start, end).toString(),
+          sourceName
+        );
+      }
+    }
+    return new CharSequenceCharStream(text, start, end - start, sourceName);
+  }
+
+  @Override
+  public void consume() {
+    if (size - position == 0) {
+      throw new IllegalStateException("cannot consume EOF");
+    }
+    position++;
+  }
+
+  @Override
+  public int LA(int i) {
+    int index;
+    if (i > 0) {
+      index = position + i - 1;
+      if (index >= size) return IntStream.EOF;
+    } else if (i < 0) {
+      index = position + i;
+      if (index < 0) return IntStream.EOF;
+    } else {
+      // undefined
+      return 0;
+    }
+    return text.charAt(offset + index);
+  }
+
+  /** mark/release do nothing, the whole range is available */
+  @Override
+  public int mark() {
+    return -1;
+  }
+
+  @Override
+  public void release(int marker) {}
+
+  @Override
+  public int index() {
+    return position;
+  }
+
+  @Override
+  public void seek(int index) {
+    position = index;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String getSourceName() {
+    if (name == null || name.isEmpty()) {
+      return UNKNOWN_SOURCE_NAME;
+    }
+    return name;
+  }
+
+  @Override
+  public String getText(Interval interval) {
+    int start = Math.min(interval.a, size);
+    int length = Math.min(interval.b - interval.a + 1, size - start);
+    if (length <= 0) return "";
+    return text
+      .subSequence(offset + start, offset + start + length)
+      .toString();
+  }
+
+  @Override
+  public String toString() {
+    return getText(Interval.of(0, size - 1));
+  }
+}
@@ -27,53 +27,113 @@
 */
 package io.github.apexdevtools.apexparser;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import org.antlr.v4.runtime.CharStreams;
+import java.util.function.Function;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
 
 public class Check {
 
   public static void main(String[] args) {
-    if (args.length < 1) {
+    CheckOptions options = new CheckOptions();
+    List<String> positional = new ArrayList<>();
+    try {
+      parseArguments(args, options, positional);
+    } catch (IllegalArgumentException ex) {
+      System.err.println(ex.getMessage());
+      System.exit(1);
+    }
+
+    if (positional.isEmpty()) {
       System.err.println(
         "Missing arguments, expecting at least path to source directory"
       );
       System.exit(1);
     }
 
+    String path = positional.get(0);
     try {
       List<String> ext;
-      if (args[1] == null) {
+      if (positional.size() < 2) {
         ext = Arrays.asList(".cls", ".trigger", ".apex");
       } else {
-        ext = Arrays.asList(args[1].split(","));
+        ext = Arrays.asList(positional.get(1).split(","));
       }
 
-      System.exit(run(Paths.get(args[0]), ext).status);
+      System.exit(run(Paths.get(path), ext, options).status);
     } catch (Exception ex) {
-      System.err.println("Error processing: " + args[0]);
+      System.err.println("Error processing: " + path);
       System.err.println(ex.getMessage());
       System.exit(1);
     }
   }
 
   public static CheckResult run(Path dir, List<String> ext) {
+    return run(dir, ext, new CheckOptions());
+  }
+
+  public static CheckResult run(
+    Path dir,
+    List<String> ext,
+    CheckOptions options
+  ) {
     try {
       FileSystem fs = FileSystems.getDefault();
+      CheckProfile profile = options.profileFile != null
+        ? new CheckProfile()
+        : null;
+      CheckMetrics metrics = options.metricsFile != null
+        ? new CheckMetrics(options.slowestFiles)
+        : null;
       List<ParseOperation> ops = new ArrayList<>();
       if (ext.contains(".cls")) ops.add(
-        new ParseOperation(fs, ".cls", ApexParser::compilationUnit)
+        new ParseOperation(
+          fs,
+          ".cls",
+          ApexParser::compilationUnit,
+          profile,
+          metrics,
+          options
+        )
       );
       if (ext.contains(".trigger")) ops.add(
-        new ParseOperation(fs, ".trigger", ApexParser::triggerUnit)
+        new ParseOperation(
+          fs,
+          ".trigger",
+          ApexParser::triggerUnit,
+          profile,
+          metrics,
+          options
+        )
       );
       if (ext.contains(".apex")) ops.add(
-        new ParseOperation(fs, ".apex", ApexParser::anonymousUnit)
+        new ParseOperation(
+          fs,
+          ".apex",
+          ApexParser::anonymousUnit,
+          profile,
+          metrics,
+          options
+        )
       );
 
       if (ops.isEmpty()) {
@@ -86,15 +146,52 @@ public class Check {
         return new CheckResult(1);
       }
 
-      Files.walkFileTree(dir, new ParseFileVisitor(dir, ops));
+      ParseFileVisitor visitor = new ParseFileVisitor(dir, ops);
+      Files.walkFileTree(dir, visitor);
 
+      // a profile or metrics need every file to be parsed
+      CheckCache cache = options.cacheFile != null &&
+        profile == null &&
+        metrics == null
+        ? CheckCache.load(options.cacheFile)
+        : null;
       List<CheckError> errors = new ArrayList<>();
-      for (ParseOperation p : ops) {
-        p.reportCount(dir);
-        errors.addAll(p.getErrors());
+      ErrorSink sink = new ErrorSink(
+        options.errorConsumer != null ? options.errorConsumer : errors::add
+      );
+
+      // flushed but not closed, the caller owns the output
+      Writer out = new BufferedWriter(
+        options.output != null
+          ? options.output
+          : new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+      );
+      try {
+        CheckReporter reporter = CheckReporter.create(options.format, out, dir);
+        reporter.begin();
+        parseFiles(
+          visitor.getFiles(),
+          options.getThreadCount(),
+          cache,
+          (file, fileErrors) -> {
+            file.countParsed();
+            reporter.report(file.relativePath, fileErrors);
+            sink.accept(fileErrors);
+          }
+        );
+        for (ParseOperation p : ops) {
+          reporter.reportCount(p.fileExtension, p.parsedCount);
+        }
+        reporter.end();
+      } finally {
+        out.flush();
       }
 
-      return new CheckResult(0, errors);
+      if (cache != null) saveCache(cache);
+      if (profile != null) profile.write(options.profileFile);
+      if (metrics != null) metrics.write(options.metricsFile);
+
+      return new CheckResult(0, errors, sink.count);
     } catch (NoSuchFileException nsf) {
       System.err.println("Path does not exist, aborting: " + dir);
       return new CheckResult(2);
@@ -105,18 +202,222 @@ public class Check {
     }
   }
 
+  private static void saveCache(CheckCache cache) {
+    // results are still valid, so only warn
+    try {
+      cache.save();
+    } catch (IOException ex) {
+      System.err.println("Failed to write cache: " + ex.getMessage());
+    }
+  }
+
+  private static void parseArguments(
+    String[] args,
+    CheckOptions options,
+    List<String> positional
+  ) {
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--threads":
+          options.threads = parseIntArgument(args, ++i, "--threads");
+          break;
+        case "--cache":
+          options.cacheFile = Paths.get(parseArgument(args, ++i, "--cache"));
+          break;
+        case "--profile":
+          options.profileFile = Paths.get(
+            parseArgument(args, ++i, "--profile")
+          );
+          break;
+        case "--metrics":
+          options.metricsFile = Paths.get(
+            parseArgument(args, ++i, "--metrics")
+          );
+          break;
+        case "--slowest":
+          options.slowestFiles = parseIntArgument(args, ++i, "--slowest");
+          break;
+        case "--max-errors":
+          options.maxErrors = parseIntArgument(args, ++i, "--max-errors");
+          break;
+        case "--timeout":
+          options.parseTimeout = parseIntArgument(args, ++i, "--timeout");
+          break;
+        case "--format":
+          options.format = parseFormat(parseArgument(args, ++i, "--format"));
+          break;
+        default:
+          positional.add(args[i]);
+      }
+    }
+  }
+
+  private static String parseArgument(String[] args, int index, String name) {
+    if (index >= args.length) {
+      throw new IllegalArgumentException("Missing value for " + name);
+    }
+    return args[index];
+  }
+
+  private static CheckFormat parseFormat(String value) {
+    try {
+      return CheckFormat.valueOf(value.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Invalid value for --format: " + value);
+    }
+  }
+
+  private static int parseIntArgument(String[] args, int index, String name) {
+    String value = parseArgument(args, index, name);
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException(
+        "Invalid value for " + name + ": " + value
+      );
+    }
+  }
+
+  private static void parseFiles(
+    List<SourceFile> files,
+    int threads,
+    CheckCache cache,
+    FileReporter reporter
+  ) throws IOException, InterruptedException {
+    if (threads <= 1) {
+      for (SourceFile file : files) {
+        reporter.report(file, file.parse(cache));
+      }
+      return;
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      // Report in discovery order, so output matches a serial run. Only a
+      // window of files is in flight, so memory does not grow with results
+      // that are waiting to be reported.
+      int window = threads * 4;
+      Deque<Future<List<CheckError>>> pending = new ArrayDeque<>(window);
+      int submitted = 0;
+      for (SourceFile file : files) {
+        while (submitted < files.size() && pending.size() < window) {
+          SourceFile next = files.get(submitted++);
+          pending.add(pool.submit(() -> next.parse(cache)));
+        }
+        reporter.report(file, getResult(pending.remove()));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static List<CheckError> getResult(Future<List<CheckError>> result)
+    throws IOException, InterruptedException {
+    try {
+      return result.get();
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  public static class CheckOptions {
+
+    /**
+     * Number of threads used to parse files. The default of 1 parses on the
+     * calling thread, values less than 1 use all available processors.
+     */
+    public int threads = 1;
+
+    /**
+     * File used to cache results between runs, or null for no caching. Files
+     * with the same content as a previous run are not parsed, their errors
+     * are reported from the cache.
+     */
+    public Path cacheFile;
+
+    /**
+     * File to write a prediction profile to, or null for no profiling. Files
+     * are parsed with ANTLR's profiler in LL mode, making the same predictions
+     * as other factory parsers, and the cache is not used, so a profiled run
+     * is much slower than a normal check.
+     */
+    public Path profileFile;
+
+    /**
+     * File to write {@link ParseMetrics} percentiles and the slowest files to,
+     * or null for no metrics. The cache is not used, so every file is parsed.
+     * Metrics are not collected for a profiled run.
+     */
+    public Path metricsFile;
+
+    /** Number of slowest files listed in the metrics report. */
+    public int slowestFiles = 10;
+
+    /**
+     * Number of syntax errors reported for a file before parsing it is
+     * stopped, or 0 for no limit. Setting a limit parses with
+     * {@link BoundedErrorStrategy}, which also changes how the parser
+     * recovers, so later errors in a file may differ from an unlimited run.
+     */
+    public int maxErrors;
+
+    /**
+     * Time in milliseconds that parsing a file may take before it is stopped,
+     * or 0 for no limit. As {@link #maxErrors}, setting a limit parses with
+     * {@link BoundedErrorStrategy}. The time includes the initial SLL parse
+     * but the limit is only checked if that fails and the file is parsed again
+     * in LL mode, as only files with syntax errors can stall. Files stopped by
+     * the time limit are not cached.
+     */
+    public long parseTimeout;
+
+    /** Format of results written to {@link #output}. */
+    public CheckFormat format = CheckFormat.DEFAULT;
+
+    /** Where results are written, standard output if null. */
+    public Writer output;
+
+    /**
+     * Receives errors as each file is reported, in discovery order. When set,
+     * errors are not held in {@link CheckResult#errors}, so memory use does
+     * not grow with the number of errors.
+     */
+    public Consumer<CheckError> errorConsumer;
+
+    int getThreadCount() {
+      return threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+  }
+
+  public enum CheckFormat {
+    /** A JSON line per error and summary lines, the original format. */
+    DEFAULT,
+    /** Compiler style {@code path:line:column: message} lines. */
+    TEXT,
+    /** A JSON object per error, one per line. */
+    NDJSON,
+    /** A SARIF 2.1.0 log. */
+    SARIF,
+  }
+
   public static class CheckResult {
 
     public int status;
     public List<CheckError> errors;
+    public int errorCount;
 
     CheckResult(int status) {
-      this(status, new ArrayList<>());
+      this(status, new ArrayList<>(), 0);
     }
 
-    CheckResult(int status, List<CheckError> errors) {
+    CheckResult(int status, List<CheckError> errors, int errorCount) {
       this.status = status;
       this.errors = errors;
+      this.errorCount = errorCount;
     }
   }
 
@@ -139,6 +440,7 @@ public class Check {
 
     private final String path;
     private final List<CheckError> errors;
+    private boolean timedOut;
 
     CheckApexErrorListener(String relativePath) {
       this.path = relativePath;
@@ -148,20 +450,32 @@ public class Check {
     @Override
     public void apexSyntaxError(int line, int column, String msg) {
       this.errors.add(new CheckError(column, line, msg, this.path));
+    }
 
-      System.out.println(
-        "{\"column\":" +
-          column +
-          ",\"line\":" +
-          line +
-          ",\"message\":\"" +
-          msg.replace("\\", "\\\\") +
-          "\",\"path\":\"" +
-          this.path +
-          "\"}"
+    public void truncated(Token token, BoundedErrorStrategy.Limit limit) {
+      String reason;
+      switch (limit) {
+        case ERRORS:
+          reason = "too many errors";
+          break;
+        case RECOVERY_TOKENS:
+          reason = "error recovery limit reached";
+          break;
+        default:
+          reason = "time limit reached";
+          this.timedOut = true;
+      }
+      apexSyntaxError(
+        token.getLine(),
+        token.getCharPositionInLine(),
+        "parsing stopped, " + reason
       );
     }
 
+    public boolean isTimedOut() {
+      return this.timedOut;
+    }
+
     public List<CheckError> getErrors() {
       return this.errors;
     }
@@ -171,60 +485,156 @@ public class Check {
 
     private final String fileExtension;
     private final PathMatcher matcher;
-    private final Consumer<ApexParser> operation;
-    private final List<CheckError> errors;
+    private final Function<ApexParser, ? extends ParserRuleContext> operation;
+    private final CheckProfile profile;
+    private final CheckMetrics metrics;
+    private final int maxErrors;
+    private final long parseTimeout;
     private int parsedCount = 0;
 
     ParseOperation(
       FileSystem fs,
       String fileExtension,
-      Consumer<ApexParser> operation
+      Function<ApexParser, ? extends ParserRuleContext> operation,
+      CheckProfile profile,
+      CheckMetrics metrics,
+      CheckOptions options
     ) {
       this.fileExtension = fileExtension;
       this.matcher = fs.getPathMatcher("glob:*" + fileExtension);
       this.operation = operation;
-      this.errors = new ArrayList<>();
+      this.profile = profile;
+      this.metrics = metrics;
+      this.maxErrors = Math.max(options.maxErrors, 0);
+      this.parseTimeout = Math.max(options.parseTimeout, 0);
     }
 
-    public boolean parse(Path root, Path file) throws IOException {
-      if (!this.matcher.matches(file.getFileName())) return false;
+    private boolean isBounded() {
+      return this.maxErrors > 0 || this.parseTimeout > 0;
+    }
+
+    public boolean matches(Path file) {
+      return this.matcher.matches(file.getFileName());
+    }
 
+    // May be called concurrently, must not touch operation state
+    public List<CheckError> parse(
+      Path file,
+      String relativePath,
+      CheckCache cache
+    ) throws IOException {
+      if (cache == null) {
+        return parse(
+          ByteBufferCharStream.fromPath(file),
+          relativePath
+        ).getErrors();
+      }
+
+      byte[] content = Files.readAllBytes(file);
+      // error limits change the result, so are part of the key
+      String operation = isBounded()
+        ? this.fileExtension + ":" + this.maxErrors
+        : this.fileExtension;
+      String key = CheckCache.key(operation, content);
+      List<CheckError> errors = cache.get(key, relativePath);
+      if (errors == null) {
+        CheckApexErrorListener listener = parse(
+          ByteBufferCharStream.fromBytes(content, file.toString()),
+          relativePath
+        );
+        errors = listener.getErrors();
+        if (!listener.isTimedOut()) cache.put(key, errors);
+      }
+      return errors;
+    }
+
+    private CheckApexErrorListener parse(
+      CharStream stream,
+      String relativePath
+    ) {
+      // Comments and whitespace are not needed to find syntax errors
       ApexParser parser = ApexParserFactory.createParser(
-        CharStreams.fromPath(file)
+        new CommonTokenStream(
+          ApexParserFactory.createLexer(stream, ApexParserFactory.Trivia.NONE)
+        )
       );
-      String relativePath = root.relativize(file).toString();
       CheckApexErrorListener listener = new CheckApexErrorListener(
         relativePath
       );
       parser.addErrorListener(listener);
 
-      this.operation.accept(parser);
-
-      List<CheckError> fileErrors = listener.getErrors();
-      if (!fileErrors.isEmpty()) {
-        System.out.println(
-          "Found " + fileErrors.size() + " syntax errors in: " + relativePath
+      if (this.profile != null) {
+        // a single LL stage, so fallbacks to full context are recorded
+        parser.setInterpreter(new ApexParserATNSimulator.Profiling(parser));
+        this.operation.apply(parser);
+        this.profile.add(relativePath, parser.getParseInfo());
+      } else if (isBounded()) {
+        BoundedErrorStrategy strategy = new BoundedErrorStrategy();
+        if (this.maxErrors > 0) strategy.setMaxErrors(this.maxErrors);
+        if (this.parseTimeout > 0) strategy.setTimeout(
+          this.parseTimeout,
+          TimeUnit.MILLISECONDS
         );
-        this.errors.addAll(fileErrors);
+        if (this.metrics != null) {
+          strategy.parse(parser, this.operation, m ->
+            this.metrics.add(relativePath, m)
+          );
+        } else {
+          strategy.parse(parser, this.operation);
+        }
+        if (strategy.isTruncated()) {
+          listener.truncated(parser.getCurrentToken(), strategy.getLimit());
+        }
+      } else if (this.metrics != null) {
+        ApexParserFactory.parse(parser, this.operation, m ->
+          this.metrics.add(relativePath, m)
+        );
+      } else {
+        ApexParserFactory.parse(parser, this.operation);
       }
 
-      ++this.parsedCount;
-      return true;
+      return listener;
     }
+  }
 
-    public void reportCount(Path root) {
-      System.out.println(
-        "Parsed " +
-          this.parsedCount +
-          " '" +
-          this.fileExtension +
-          "' files in: " +
-          root
-      );
+  private static class SourceFile {
+
+    private final ParseOperation operation;
+    private final Path file;
+    private final String relativePath;
+
+    SourceFile(ParseOperation operation, Path file, String relativePath) {
+      this.operation = operation;
+      this.file = file;
+      this.relativePath = relativePath;
     }
 
-    public List<CheckError> getErrors() {
-      return this.errors;
+    public List<CheckError> parse(CheckCache cache) throws IOException {
+      return this.operation.parse(this.file, this.relativePath, cache);
+    }
+
+    public void countParsed() {
+      ++this.operation.parsedCount;
+    }
+  }
+
+  private interface FileReporter {
+    void report(SourceFile file, List<CheckError> fileErrors)
+      throws IOException;
+  }
+
+  private static class ErrorSink {
+
+    private final Consumer<CheckError> consumer;
+    private int count = 0;
+
+    ErrorSink(Consumer<CheckError> consumer) {
+      this.consumer = consumer;
+    }
+
+    void accept(List<CheckError> errors) {
+      errors.forEach(this.consumer);
+      this.count += errors.size();
     }
   }
 
@@ -232,21 +642,30 @@ public class Check {
 
     private final List<ParseOperation> operations;
     private final Path root;
+    private final List<SourceFile> files;
 
     ParseFileVisitor(Path root, List<ParseOperation> operations) {
       this.root = root;
       this.operations = operations;
+      this.files = new ArrayList<>();
     }
 
     @Override
-    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
-      throws IOException {
-      // run first applicable operation
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+      // collect first applicable operation
       for (ParseOperation op : this.operations) {
-        if (op.parse(this.root, file)) break;
+        if (op.matches(file)) {
+          String relativePath = this.root.relativize(file).toString();
+          this.files.add(new SourceFile(op, file, relativePath));
+          break;
+        }
       }
 
       return FileVisitResult.CONTINUE;
     }
+
+    public List<SourceFile> getFiles() {
+      return this.files;
+    }
   }
 }
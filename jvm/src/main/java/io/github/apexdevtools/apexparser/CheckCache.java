@@ -0,0 +1,273 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * On-disk cache of {@link Check} results, keyed by a hash of the file content
+ * and the parse operation used. The cache is discarded when the grammar or
+ * parser version changes, so cached errors always match what a parse would
+ * report. Safe for concurrent use during a check.
+ */
+class CheckCache {
+
+  private static final int MAGIC = 0x41504343; // APCC
+  private static final int FORMAT = 1;
+  private static final int MAX_STRING_BYTES = 1 << 24;
+  private static final int MAX_COUNT = 1 << 20;
+
+  private final Path file;
+  private final String fingerprint;
+  private final Map<String, List<CachedError>> loaded;
+  private final Map<String, List<CachedError>> used;
+  private final AtomicInteger hits = new AtomicInteger();
+
+  private CheckCache(
+    Path file,
+    String fingerprint,
+    Map<String, List<CachedError>> loaded
+  ) {
+    this.file = file;
+    this.fingerprint = fingerprint;
+    this.loaded = loaded;
+    this.used = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Loads the cache from a file. A missing, unreadable or out of date file
+   * gives an empty cache.
+   */
+  static CheckCache load(Path file) {
+    return load(file, grammarFingerprint());
+  }
+
+  static CheckCache load(Path file, String fingerprint) {
+    Map<String, List<CachedError>> entries = new ConcurrentHashMap<>();
+    try (
+      DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file))
+      )
+    ) {
+      if (
+        in.readInt() == MAGIC &&
+        in.readInt() == FORMAT &&
+        readString(in).equals(fingerprint)
+      ) {
+        int count = readCount(in);
+        for (int i = 0; i < count; i++) {
+          String key = readString(in);
+          int errorCount = readCount(in);
+          List<CachedError> errors = new ArrayList<>(errorCount);
+          for (int j = 0; j < errorCount; j++) {
+            int line = in.readInt();
+            int column = in.readInt();
+            errors.add(new CachedError(line, column, readString(in)));
+          }
+          entries.put(key, errors);
+        }
+      }
+    } catch (NoSuchFileException ex) {
+      // first run
+    } catch (IOException ex) {
+      // treat corrupt or truncated caches as empty
+      entries.clear();
+    }
+    return new CheckCache(file, fingerprint, entries);
+  }
+
+  /** Key for file content parsed with the given operation. */
+  static String key(String operation, byte[] content) {
+    MessageDigest digest = sha256();
+    digest.update(operation.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    digest.update(content);
+    return toHex(digest.digest());
+  }
+
+  /** Cached errors for a key, with paths set, or null if not cached. */
+  List<Check.CheckError> get(String key, String relativePath) {
+    List<CachedError> cached = loaded.get(key);
+    if (cached == null) cached = used.get(key);
+    if (cached == null) return null;
+
+    used.put(key, cached);
+    hits.incrementAndGet();
+    List<Check.CheckError> errors = new ArrayList<>(cached.size());
+    for (CachedError error : cached) {
+      errors.add(
+        new Check.CheckError(
+          error.column,
+          error.line,
+          error.message,
+          relativePath
+        )
+      );
+    }
+    return errors;
+  }
+
+  void put(String key, List<Check.CheckError> errors) {
+    List<CachedError> cached = new ArrayList<>(errors.size());
+    for (Check.CheckError error : errors) {
+      cached.add(new CachedError(error.line, error.column, error.message));
+    }
+    used.put(key, cached);
+  }
+
+  int getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Writes entries used by this check back to the file, dropping those for
+   * files that have since changed or been removed.
+   */
+  void save() throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) Files.createDirectories(parent);
+
+    Path temp = Files.createTempFile(
+      parent,
+      file.getFileName().toString(),
+      ".tmp"
+    );
+    try {
+      try (
+        DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temp))
+        )
+      ) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        writeString(out, fingerprint);
+        out.writeInt(used.size());
+        for (Map.Entry<String, List<CachedError>> entry : used.entrySet()) {
+          writeString(out, entry.getKey());
+          out.writeInt(entry.getValue().size());
+          for (CachedError error : entry.getValue()) {
+            out.writeInt(error.line);
+            out.writeInt(error.column);
+            writeString(out, error.message);
+          }
+        }
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Identifies the grammar and parser build, derived from the serialized
+   * ATNs and the package version.
+   */
+  static String grammarFingerprint() {
+    MessageDigest digest = sha256();
+    digest.update(ApexLexer._serializedATN.getBytes(StandardCharsets.UTF_8));
+    digest.update(ApexParser._serializedATN.getBytes(StandardCharsets.UTF_8));
+    String version = CheckCache.class.getPackage().getImplementationVersion();
+    if (version != null) {
+      digest.update(version.getBytes(StandardCharsets.UTF_8));
+    }
+    return toHex(digest.digest());
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException ex) {
+      // required of all Java platforms
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+      hex.append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  // Messages may exceed the 64K limit of writeUTF
+  private static void writeString(DataOutputStream out, String value)
+    throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static int readCount(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    if (count < 0 || count > MAX_COUNT) {
+      throw new IOException("Invalid count");
+    }
+    return count;
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > MAX_STRING_BYTES) {
+      throw new IOException("Invalid string length");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static class CachedError {
+
+    final int line;
+    final int column;
+    final String message;
+
+    CachedError(int line, int column, String message) {
+      this.line = line;
+      this.column = column;
+      this.message = message;
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link ParseMetrics} for the files parsed by {@link Check}. Written as a
+ * report of percentiles over all files followed by the slowest files. Safe
+ * for concurrent use during a check.
+ */
+class CheckMetrics {
+
+  private static final double[] PERCENTILES = new double[] { 50, 90, 99 };
+
+  private final int slowest;
+  private final List<FileMetrics> files = new ArrayList<>();
+
+  CheckMetrics(int slowest) {
+    this.slowest = Math.max(slowest, 0);
+  }
+
+  synchronized void add(String relativePath, ParseMetrics metrics) {
+    files.add(new FileMetrics(relativePath, metrics));
+  }
+
+  synchronized void write(Path file) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) Files.createDirectories(parent);
+    try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      write(out);
+    }
+  }
+
+  synchronized void write(Writer out) throws IOException {
+    long lex = sum(m -> m.getLexNanos());
+    long parse = sum(m -> m.getParseNanos());
+    long fallbacks = sum(m -> m.isFallback() ? 1 : 0);
+    out.write(
+      format(
+        "Measured %d files, %.1f ms lexing, %.1f ms parsing, %d parsed " +
+        "again in LL mode\n",
+        files.size(),
+        lex / 1e6,
+        parse / 1e6,
+        fallbacks
+      )
+    );
+
+    out.write("\nPercentiles over files\n");
+    out.write(format("%-20s", ""));
+    for (double p : PERCENTILES) {
+      out.write(format(" %10s", format("p%.0f", p)));
+    }
+    out.write(format(" %10s %12s\n", "max", "total"));
+    writeMillis(out, "lex ms", m -> m.getLexNanos());
+    writeMillis(out, "parse ms", m -> m.getParseNanos());
+    writeMillis(out, "total ms", m -> m.getTotalNanos());
+    writeCounts(out, "tokens", m -> m.getTokenCount(), true);
+    writeCounts(out, "nodes", m -> m.getNodeCount(), true);
+    writeCounts(out, "errors", m -> m.getErrorCount(), true);
+    writeCounts(out, "full context", m -> m.getFullContextPredictions(), true);
+    writeCounts(out, "max lookahead", m -> m.getMaxLookahead(), false);
+
+    List<FileMetrics> ranked = new ArrayList<>(files);
+    ranked.sort(
+      Comparator.comparingLong((FileMetrics f) ->
+        f.metrics.getTotalNanos()
+      ).reversed()
+    );
+    int count = Math.min(slowest, ranked.size());
+    out.write(format("\nSlowest %d files by lex and parse time\n", count));
+    out.write(
+      format(
+        "%5s %10s %10s %10s %8s %8s %5s %12s %6s %9s %s\n",
+        "rank",
+        "total ms",
+        "lex ms",
+        "parse ms",
+        "tokens",
+        "nodes",
+        "mode",
+        "full context",
+        "errors",
+        "lookahead",
+        "file"
+      )
+    );
+    for (int i = 0; i < count; i++) {
+      FileMetrics file = ranked.get(i);
+      ParseMetrics m = file.metrics;
+      out.write(
+        format(
+          "%5d %10.2f %10.2f %10.2f %8d %8d %5s %12d %6d %9d %s\n",
+          i + 1,
+          m.getTotalNanos() / 1e6,
+          m.getLexNanos() / 1e6,
+          m.getParseNanos() / 1e6,
+          m.getTokenCount(),
+          m.getNodeCount(),
+          m.isFallback() ? "LL" : "SLL",
+          m.getFullContextPredictions(),
+          m.getErrorCount(),
+          m.getMaxLookahead(),
+          file.relativePath
+        )
+      );
+    }
+  }
+
+  private void writeMillis(
+    Writer out,
+    String name,
+    ToLongFunction<ParseMetrics> value
+  ) throws IOException {
+    long[] sorted = sorted(value);
+    out.write(format("%-20s", name));
+    for (double p : PERCENTILES) {
+      out.write(format(" %10.2f", percentile(sorted, p) / 1e6));
+    }
+    out.write(
+      format(" %10.2f %12.1f\n", max(sorted) / 1e6, sum(value) / 1e6)
+    );
+  }
+
+  private void writeCounts(
+    Writer out,
+    String name,
+    ToLongFunction<ParseMetrics> value,
+    boolean total
+  ) throws IOException {
+    long[] sorted = sorted(value);
+    out.write(format("%-20s", name));
+    for (double p : PERCENTILES) {
+      out.write(format(" %10d", percentile(sorted, p)));
+    }
+    out.write(format(" %10d", max(sorted)));
+    out.write(total ? format(" %12d\n", sum(value)) : "\n");
+  }
+
+  private long[] sorted(ToLongFunction<ParseMetrics> value) {
+    long[] values = new long[files.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = value.applyAsLong(files.get(i).metrics);
+    }
+    Arrays.sort(values);
+    return values;
+  }
+
+  private long sum(ToLongFunction<ParseMetrics> value) {
+    long total = 0;
+    for (FileMetrics file : files) {
+      total += value.applyAsLong(file.metrics);
+    }
+    return total;
+  }
+
+  // Nearest rank, so the result is always a measured value
+  static long percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) return 0;
+    int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
+
+  private static long max(long[] sorted) {
+    return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+  }
+
+  private static String format(String format, Object... args) {
+    return String.format(Locale.ROOT, format, args);
+  }
+
+  private static final class FileMetrics {
+
+    final String relativePath;
+    final ParseMetrics metrics;
+
+    FileMetrics(String relativePath, ParseMetrics metrics) {
+      this.relativePath = relativePath;
+      this.metrics = metrics;
+    }
+  }
+}
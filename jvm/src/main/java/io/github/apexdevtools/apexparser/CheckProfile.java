@@ -0,0 +1,278 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.DecisionState;
+import org.antlr.v4.runtime.atn.LookaheadEventInfo;
+import org.antlr.v4.runtime.atn.ParseInfo;
+import org.antlr.v4.runtime.atn.StarLoopEntryState;
+
+/**
+ * Prediction statistics for each {@link ApexParser} decision, aggregated
+ * over the files parsed by {@link Check}. Written as a report ranking rules
+ * and decisions by time spent in prediction. Safe for concurrent use during
+ * a check.
+ */
+class CheckProfile {
+
+  private final DecisionStats[] decisions;
+  private int files = 0;
+
+  CheckProfile() {
+    decisions = new DecisionStats[ApexParser._ATN.getNumberOfDecisions()];
+    for (int i = 0; i < decisions.length; i++) {
+      decisions[i] = new DecisionStats(i);
+    }
+  }
+
+  /** Adds the statistics of a profiled parse. */
+  synchronized void add(String relativePath, ParseInfo info) {
+    files++;
+    for (DecisionInfo decision : info.getDecisionInfo()) {
+      if (decision.invocations > 0) {
+        decisions[decision.decision].add(relativePath, decision);
+      }
+    }
+  }
+
+  synchronized void write(Path file) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) Files.createDirectories(parent);
+    try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      write(out);
+    }
+  }
+
+  synchronized void write(Writer out) throws IOException {
+    List<DecisionStats> used = new ArrayList<>();
+    RuleStats[] rules = new RuleStats[ApexParser.ruleNames.length];
+    long total = 0;
+    for (DecisionStats decision : decisions) {
+      if (decision.invocations == 0) continue;
+      used.add(decision);
+      total += decision.time;
+      int rule = decision.state.ruleIndex;
+      if (rules[rule] == null) rules[rule] = new RuleStats(rule);
+      rules[rule].add(decision);
+    }
+    used.sort(Comparator.comparingLong((DecisionStats d) -> d.time).reversed());
+    List<RuleStats> usedRules = new ArrayList<>();
+    for (RuleStats rule : rules) {
+      if (rule != null) usedRules.add(rule);
+    }
+    usedRules.sort(Comparator.comparingLong((RuleStats r) -> r.time).reversed());
+
+    out.write(
+      format(
+        "Profiled %d files, %.1f ms in prediction over %d decisions\n",
+        files,
+        total / 1e6,
+        used.size()
+      )
+    );
+    out.write(
+      "Parsed with LL prediction, SLL lookahead is the first stage of each " +
+      "prediction and LL lookahead is after a fallback to full context.\n"
+    );
+
+    out.write("\nRules by prediction time\n");
+    out.write(
+      format(
+        "%5s %-32s %9s %12s %10s %7s %12s\n",
+        "rank",
+        "rule",
+        "decisions",
+        "invocations",
+        "time ms",
+        "time%",
+        "LL fallbacks"
+      )
+    );
+    for (int i = 0; i < usedRules.size(); i++) {
+      RuleStats rule = usedRules.get(i);
+      out.write(
+        format(
+          "%5d %-32s %9d %12d %10.1f %7.2f %12d\n",
+          i + 1,
+          ApexParser.ruleNames[rule.rule],
+          rule.decisions,
+          rule.invocations,
+          rule.time / 1e6,
+          percent(rule.time, total),
+          rule.llFallbacks
+        )
+      );
+    }
+
+    out.write("\nDecisions by prediction time\n");
+    out.write(
+      format(
+        "%5s %8s %-32s %-22s %12s %10s %7s %8s %6s %12s %8s %6s %6s %s\n",
+        "rank",
+        "decision",
+        "rule",
+        "kind",
+        "invocations",
+        "time ms",
+        "time%",
+        "SLL avg",
+        "max",
+        "LL fallbacks",
+        "LL avg",
+        "max",
+        "ambig",
+        "max lookahead at"
+      )
+    );
+    for (int i = 0; i < used.size(); i++) {
+      DecisionStats decision = used.get(i);
+      out.write(
+        format(
+          "%5d %8d %-32s %-22s %12d %10.1f %7.2f %8.2f %6d %12d %8.2f %6d %6d %s\n",
+          i + 1,
+          decision.decision,
+          ApexParser.ruleNames[decision.state.ruleIndex],
+          kind(decision.state),
+          decision.invocations,
+          decision.time / 1e6,
+          percent(decision.time, total),
+          average(decision.sllTotalLook, decision.invocations),
+          decision.sllMaxLook,
+          decision.llFallbacks,
+          average(decision.llTotalLook, decision.llFallbacks),
+          decision.llMaxLook,
+          decision.ambiguities,
+          decision.maxLookLocation == null ? "" : decision.maxLookLocation
+        )
+      );
+    }
+  }
+
+  private static String kind(DecisionState state) {
+    String kind = ATNState.serializationNames
+      .get(state.getStateType())
+      .toLowerCase(Locale.ROOT);
+    if (
+      state instanceof StarLoopEntryState &&
+      ((StarLoopEntryState) state).isPrecedenceDecision
+    ) {
+      kind += " (prec)";
+    }
+    return kind;
+  }
+
+  private static String format(String format, Object... args) {
+    return String.format(Locale.ROOT, format, args);
+  }
+
+  private static double percent(long value, long total) {
+    return total == 0 ? 0 : value * 100.0 / total;
+  }
+
+  private static double average(long total, long count) {
+    return count == 0 ? 0 : (double) total / count;
+  }
+
+  private static final class DecisionStats {
+
+    final int decision;
+    final DecisionState state;
+    long invocations;
+    long time;
+    long sllTotalLook;
+    long sllMaxLook;
+    long llFallbacks;
+    long llTotalLook;
+    long llMaxLook;
+    long ambiguities;
+    String maxLookLocation;
+
+    DecisionStats(int decision) {
+      this.decision = decision;
+      this.state = ApexParser._ATN.getDecisionState(decision);
+    }
+
+    void add(String relativePath, DecisionInfo info) {
+      invocations += info.invocations;
+      time += info.timeInPrediction;
+      sllTotalLook += info.SLL_TotalLook;
+      llFallbacks += info.LL_Fallback;
+      llTotalLook += info.LL_TotalLook;
+      ambiguities += info.ambiguities.size();
+
+      long look = Math.max(info.SLL_MaxLook, info.LL_MaxLook);
+      if (look > Math.max(sllMaxLook, llMaxLook)) {
+        LookaheadEventInfo event = info.LL_MaxLook > info.SLL_MaxLook
+          ? info.LL_MaxLookEvent
+          : info.SLL_MaxLookEvent;
+        maxLookLocation = location(relativePath, event);
+      }
+      sllMaxLook = Math.max(sllMaxLook, info.SLL_MaxLook);
+      llMaxLook = Math.max(llMaxLook, info.LL_MaxLook);
+    }
+
+    private static String location(
+      String relativePath,
+      LookaheadEventInfo event
+    ) {
+      if (event == null || event.input == null) return relativePath;
+      return relativePath + ":" + event.input.get(event.startIndex).getLine();
+    }
+  }
+
+  private static final class RuleStats {
+
+    final int rule;
+    int decisions;
+    long invocations;
+    long time;
+    long llFallbacks;
+
+    RuleStats(int rule) {
+      this.rule = rule;
+    }
+
+    void add(DecisionStats decision) {
+      decisions++;
+      invocations += decision.invocations;
+      time += decision.time;
+      llFallbacks += decision.llFallbacks;
+    }
+  }
+}
@@ -0,0 +1,283 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import io.github.apexdevtools.apexparser.Check.CheckError;
+import io.github.apexdevtools.apexparser.Check.CheckFormat;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes {@link Check} results in one of the {@link CheckFormat} formats.
+ * Results are written as each file is reported, so output is streamed rather
+ * than held until the end of the check.
+ */
+abstract class CheckReporter {
+
+  protected final Writer out;
+  protected final Path root;
+
+  CheckReporter(Writer out, Path root) {
+    this.out = out;
+    this.root = root;
+  }
+
+  static CheckReporter create(CheckFormat format, Writer out, Path root) {
+    switch (format) {
+      case TEXT:
+        return new TextReporter(out, root);
+      case NDJSON:
+        return new NDJSONReporter(out, root);
+      case SARIF:
+        return new SARIFReporter(out, root);
+      default:
+        return new DefaultReporter(out, root);
+    }
+  }
+
+  void begin() throws IOException {}
+
+  /** Called once for each file parsed, in discovery order. */
+  abstract void report(String relativePath, List<CheckError> errors)
+    throws IOException;
+
+  /** Called once for each file extension at the end of a check. */
+  void reportCount(String fileExtension, int count) throws IOException {}
+
+  void end() throws IOException {}
+
+  protected void writeJSONError(CheckError error) throws IOException {
+    out.write("{\"column\":");
+    out.write(Integer.toString(error.column));
+    out.write(",\"line\":");
+    out.write(Integer.toString(error.line));
+    out.write(",\"message\":");
+    writeJSONString(out, error.message);
+    out.write(",\"path\":");
+    writeJSONString(out, error.path);
+    out.write('}');
+  }
+
+  static void writeJSONString(Writer out, String value) throws IOException {
+    out.write('"');
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      String escaped;
+      if (c == '"') escaped = "\\\"";
+      else if (c == '\\') escaped = "\\\\";
+      else if (c == '\n') escaped = "\\n";
+      else if (c == '\r') escaped = "\\r";
+      else if (c == '\t') escaped = "\\t";
+      else if (c < 0x20) {
+        escaped = String.format("\\u%04x", (int) c);
+      } else {
+        continue;
+      }
+      out.write(value, start, i - start);
+      out.write(escaped);
+      start = i + 1;
+    }
+    out.write(value, start, value.length() - start);
+    out.write('"');
+  }
+
+  /**
+   * The original output, a JSON line per error followed by a summary line for
+   * each file with errors, then counts of files parsed.
+   */
+  private static class DefaultReporter extends CheckReporter {
+
+    DefaultReporter(Writer out, Path root) {
+      super(out, root);
+    }
+
+    @Override
+    void report(String relativePath, List<CheckError> errors)
+      throws IOException {
+      if (errors.isEmpty()) return;
+
+      for (CheckError error : errors) {
+        writeJSONError(error);
+        out.write('\n');
+      }
+      out.write(
+        "Found " + errors.size() + " syntax errors in: " + relativePath + "\n"
+      );
+    }
+
+    @Override
+    void reportCount(String fileExtension, int count) throws IOException {
+      out.write(
+        "Parsed " +
+          count +
+          " '" +
+          fileExtension +
+          "' files in: " +
+          root +
+          "\n"
+      );
+    }
+  }
+
+  /**
+   * Compiler style {@code path:line:column: message} lines, with 1-based
+   * columns, followed by a summary and nothing else.
+   */
+  private static class TextReporter extends CheckReporter {
+
+    private int errorCount = 0;
+    private int fileCount = 0;
+
+    TextReporter(Writer out, Path root) {
+      super(out, root);
+    }
+
+    @Override
+    void report(String relativePath, List<CheckError> errors)
+      throws IOException {
+      for (CheckError error : errors) {
+        out.write(error.path);
+        out.write(':');
+        out.write(Integer.toString(error.line));
+        out.write(':');
+        out.write(Integer.toString(error.column + 1));
+        out.write(": error: ");
+        out.write(error.message);
+        out.write('\n');
+      }
+      if (!errors.isEmpty()) {
+        errorCount += errors.size();
+        fileCount++;
+      }
+    }
+
+    @Override
+    void end() throws IOException {
+      out.write(
+        "Found " + errorCount + " syntax errors in " + fileCount + " files\n"
+      );
+    }
+  }
+
+  /** A JSON object per error, one per line. */
+  private static class NDJSONReporter extends CheckReporter {
+
+    NDJSONReporter(Writer out, Path root) {
+      super(out, root);
+    }
+
+    @Override
+    void report(String relativePath, List<CheckError> errors)
+      throws IOException {
+      for (CheckError error : errors) {
+        writeJSONError(error);
+        out.write('\n');
+      }
+    }
+  }
+
+  /**
+   * A SARIF 2.1.0 log with a single run. Results are streamed into the
+   * results array as files are reported.
+   */
+  private static class SARIFReporter extends CheckReporter {
+
+    private static final String RULE_ID = "syntax-error";
+
+    private boolean first = true;
+
+    SARIFReporter(Writer out, Path root) {
+      super(out, root);
+    }
+
+    @Override
+    void begin() throws IOException {
+      out.write(
+        "{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\"," +
+          "\"version\":\"2.1.0\",\"runs\":[{\"tool\":{\"driver\":{" +
+          "\"name\":\"apex-parser\"," +
+          "\"informationUri\":\"https://github.com/apex-dev-tools/apex-parser\","
+      );
+      String version = CheckReporter.class.getPackage()
+        .getImplementationVersion();
+      if (version != null) {
+        out.write("\"version\":");
+        writeJSONString(out, version);
+        out.write(',');
+      }
+      out.write(
+        "\"rules\":[{\"id\":\"" +
+          RULE_ID +
+          "\",\"shortDescription\":{\"text\":\"Apex syntax error\"}}]}}," +
+          "\"originalUriBaseIds\":{\"SRCROOT\":{\"uri\":"
+      );
+      writeJSONString(out, root.toAbsolutePath().toUri().toString());
+      out.write("}},\"results\":[");
+    }
+
+    @Override
+    void report(String relativePath, List<CheckError> errors)
+      throws IOException {
+      for (CheckError error : errors) {
+        if (!first) out.write(',');
+        first = false;
+
+        out.write("\n{\"ruleId\":\"" + RULE_ID + "\",\"level\":\"error\",");
+        out.write("\"message\":{\"text\":");
+        writeJSONString(out, error.message);
+        out.write("},\"locations\":[{\"physicalLocation\":{");
+        out.write("\"artifactLocation\":{\"uri\":");
+        writeJSONString(out, toURI(error.path));
+        out.write(",\"uriBaseId\":\"SRCROOT\"},\"region\":{\"startLine\":");
+        out.write(Integer.toString(error.line));
+        out.write(",\"startColumn\":");
+        out.write(Integer.toString(error.column + 1));
+        out.write("}}}]}");
+      }
+    }
+
+    @Override
+    void end() throws IOException {
+      out.write("\n]}]}\n");
+    }
+
+    private static String toURI(String relativePath) {
+      String path = relativePath.replace('\\', '/');
+      try {
+        return new URI(null, null, path, null).toASCIIString();
+      } catch (URISyntaxException ex) {
+        return path;
+      }
+    }
+  }
+}
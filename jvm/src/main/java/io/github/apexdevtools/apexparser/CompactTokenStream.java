@@ -0,0 +1,650 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.RuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+/**
+ * A token stream that stores tokens in primitive arrays rather than holding a
+ * {@link CommonToken} per token. It behaves as a {@code CommonTokenStream},
+ * the parser sees tokens on one channel and all tokens are buffered so they
+ * can be read again.
+ *
+ * <p>For each token the type, channel and start and stop indexes are stored,
+ * about 11 bytes against roughly 50 for a {@code CommonToken} and its list
+ * entry. Lines and columns are recovered from a table of line start offsets
+ * and text is read from the input when needed. {@link Token} instances are
+ * created on demand, so only the tokens a caller holds on to, such as those
+ * referenced from a parse tree, are kept in memory.
+ *
+ * <p>When the token source is a {@link Lexer} its token factory is replaced
+ * with one that reuses a single token, as each token is copied into the
+ * arrays as it is read. Tokens with text set by the lexer, rather than taken
+ * from the input, are stored separately.
+ */
+public final class CompactTokenStream implements TokenStream {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int CACHE_SIZE = 256;
+
+  private final TokenSource tokenSource;
+  private final CharStream input;
+  private final int channel;
+
+  private int size = 0;
+  private short[] types = new short[INITIAL_CAPACITY];
+  private byte[] channels = new byte[INITIAL_CAPACITY];
+  private int[] starts = new int[INITIAL_CAPACITY];
+  private int[] stops = new int[INITIAL_CAPACITY];
+
+  // Line number and start offset of each line a token starts on
+  private int lineCount = 0;
+  private int[] lineNumbers = new int[INITIAL_CAPACITY / 4];
+  private int[] lineOffsets = new int[INITIAL_CAPACITY / 4];
+
+  private final Map<Integer, String> texts = new HashMap<>();
+  private final CompactToken[] cache = new CompactToken[CACHE_SIZE];
+  private final ReusedTokenFactory factory;
+  private int p = -1;
+  private boolean fetchedEOF = false;
+
+  public CompactTokenStream(TokenSource tokenSource) {
+    this(tokenSource, Token.DEFAULT_CHANNEL);
+  }
+
+  public CompactTokenStream(TokenSource tokenSource, int channel) {
+    if (tokenSource == null) {
+      throw new NullPointerException("tokenSource cannot be null");
+    }
+    this.tokenSource = tokenSource;
+    this.input = tokenSource.getInputStream();
+    this.channel = channel;
+    if (tokenSource instanceof Lexer) {
+      factory = new ReusedTokenFactory();
+      ((Lexer) tokenSource).setTokenFactory(factory);
+    } else {
+      factory = null;
+    }
+  }
+
+  // Restores a complete stream, see SerializedParse
+  CompactTokenStream(
+    TokenSource tokenSource,
+    short[] types,
+    byte[] channels,
+    int[] starts,
+    int[] stops,
+    int[] lineNumbers,
+    int[] lineOffsets,
+    Map<Integer, String> texts
+  ) {
+    this.tokenSource = tokenSource;
+    this.input = tokenSource.getInputStream();
+    this.channel = Token.DEFAULT_CHANNEL;
+    this.factory = null;
+    this.size = types.length;
+    this.types = types;
+    this.channels = channels;
+    this.starts = starts;
+    this.stops = stops;
+    this.lineCount = lineNumbers.length;
+    this.lineNumbers = lineNumbers;
+    this.lineOffsets = lineOffsets;
+    this.texts.putAll(texts);
+    this.fetchedEOF = true;
+  }
+
+  @Override
+  public TokenSource getTokenSource() {
+    return tokenSource;
+  }
+
+  @Override
+  public String getSourceName() {
+    return tokenSource.getSourceName();
+  }
+
+  @Override
+  public int index() {
+    return p;
+  }
+
+  @Override
+  public int mark() {
+    return 0;
+  }
+
+  @Override
+  public void release(int marker) {}
+
+  @Override
+  public void seek(int index) {
+    lazyInit();
+    p = nextTokenOnChannel(index, channel);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void consume() {
+    boolean skipEofCheck = p >= 0 && (fetchedEOF ? p < size - 1 : p < size);
+    if (!skipEofCheck && LA(1) == Token.EOF) {
+      throw new IllegalStateException("cannot consume EOF");
+    }
+    if (sync(p + 1)) {
+      p = nextTokenOnChannel(p + 1, channel);
+    }
+  }
+
+  @Override
+  public int LA(int i) {
+    int index = lookIndex(i);
+    return index < 0 ? Token.INVALID_TYPE : types[index];
+  }
+
+  @Override
+  public Token LT(int k) {
+    int index = lookIndex(k);
+    return index < 0 ? null : get(index);
+  }
+
+  @Override
+  public Token get(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException(
+        "token index " + i + " out of range 0.." + (size - 1)
+      );
+    }
+    CompactToken token = cache[i % CACHE_SIZE];
+    if (token == null || token.index != i) {
+      token = new CompactToken(this, i);
+      cache[i % CACHE_SIZE] = token;
+    }
+    return token;
+  }
+
+  /** Reads all tokens from the source. */
+  public void fill() {
+    lazyInit();
+    while (!fetchedEOF) {
+      fetch(INITIAL_CAPACITY);
+    }
+  }
+
+  /** A view of the buffered tokens, creating each token as it is read. */
+  public List<Token> getTokens() {
+    return new AbstractList<Token>() {
+      @Override
+      public Token get(int index) {
+        return CompactTokenStream.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  public int getType(int i) {
+    return types[checkIndex(i)];
+  }
+
+  public int getChannel(int i) {
+    return channels[checkIndex(i)];
+  }
+
+  public int getStartIndex(int i) {
+    return starts[checkIndex(i)];
+  }
+
+  public int getStopIndex(int i) {
+    return stops[checkIndex(i)];
+  }
+
+  public int getLine(int i) {
+    return lineNumbers[lineOf(starts[checkIndex(i)])];
+  }
+
+  public int getCharPositionInLine(int i) {
+    int start = starts[checkIndex(i)];
+    return start - lineOffsets[lineOf(start)];
+  }
+
+  public String getText(int i) {
+    checkIndex(i);
+    String text = texts.get(i);
+    if (text != null) return text;
+    if (types[i] == Token.EOF) return "<EOF>";
+    return input.getText(Interval.of(starts[i], stops[i]));
+  }
+
+  // Text set by the lexer rather than read from the input, or null
+  String getSetText(int i) {
+    return texts.get(checkIndex(i));
+  }
+
+  /**
+   * Collects tokens on the given channel, or any hidden channel for -1, from
+   * after the given token up to the next default channel token.
+   *
+   * @return the tokens or null if there are none
+   */
+  public List<Token> getHiddenTokensToRight(int tokenIndex, int channel) {
+    lazyInit();
+    checkIndex(tokenIndex);
+    int next = nextTokenOnChannel(tokenIndex + 1, Token.DEFAULT_CHANNEL);
+    return filterForChannel(tokenIndex + 1, next, channel);
+  }
+
+  /**
+   * Collects tokens on the given channel, or any hidden channel for -1, from
+   * after the previous default channel token up to the given token.
+   *
+   * @return the tokens or null if there are none
+   */
+  public List<Token> getHiddenTokensToLeft(int tokenIndex, int channel) {
+    lazyInit();
+    checkIndex(tokenIndex);
+    if (tokenIndex == 0) return null;
+    int previous = previousTokenOnChannel(
+      tokenIndex - 1,
+      Token.DEFAULT_CHANNEL
+    );
+    if (previous == tokenIndex - 1) return null;
+    return filterForChannel(previous + 1, tokenIndex - 1, channel);
+  }
+
+  @Override
+  public String getText() {
+    return getText(Interval.of(0, size - 1));
+  }
+
+  @Override
+  public String getText(Interval interval) {
+    int start = interval.a;
+    int stop = interval.b;
+    if (start < 0 || stop < 0) return "";
+    sync(stop);
+    if (stop >= size) stop = size - 1;
+
+    StringBuilder builder = new StringBuilder();
+    for (int i = start; i <= stop && types[i] != Token.EOF; i++) {
+      builder.append(getText(i));
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public String getText(RuleContext ctx) {
+    return getText(ctx.getSourceInterval());
+  }
+
+  @Override
+  public String getText(Token start, Token stop) {
+    if (start == null || stop == null) return "";
+    return getText(Interval.of(start.getTokenIndex(), stop.getTokenIndex()));
+  }
+
+  private int lookIndex(int k) {
+    lazyInit();
+    if (k == 0) return -1;
+    int i = p;
+    if (k < 0) {
+      if (p + k < 0) return -1;
+      for (int n = 1; n <= -k && i > 0; n++) {
+        i = previousTokenOnChannel(i - 1, channel);
+      }
+      return i;
+    }
+    for (int n = 1; n < k; n++) {
+      if (sync(i + 1)) i = nextTokenOnChannel(i + 1, channel);
+    }
+    return i;
+  }
+
+  private int nextTokenOnChannel(int i, int channel) {
+    sync(i);
+    if (i >= size) return size - 1;
+    while (channels[i] != channel) {
+      if (types[i] == Token.EOF) return i;
+      i++;
+      sync(i);
+    }
+    return i;
+  }
+
+  private int previousTokenOnChannel(int i, int channel) {
+    sync(i);
+    if (i >= size) return size - 1;
+    while (i >= 0) {
+      if (types[i] == Token.EOF || channels[i] == channel) return i;
+      i--;
+    }
+    return i;
+  }
+
+  private List<Token> filterForChannel(int from, int to, int channel) {
+    List<Token> hidden = new ArrayList<>();
+    for (int i = from; i <= to; i++) {
+      if (
+        channel == -1
+          ? channels[i] != Token.DEFAULT_CHANNEL
+          : channels[i] == channel
+      ) {
+        hidden.add(get(i));
+      }
+    }
+    return hidden.isEmpty() ? null : hidden;
+  }
+
+  private void lazyInit() {
+    if (p == -1) {
+      sync(0);
+      p = nextTokenOnChannel(0, channel);
+    }
+  }
+
+  private boolean sync(int i) {
+    int n = i - size + 1;
+    return n <= 0 || fetch(n) >= n;
+  }
+
+  private int fetch(int n) {
+    if (fetchedEOF) return 0;
+
+    for (int i = 0; i < n; i++) {
+      Token token = nextToken();
+      add(token);
+      if (token.getType() == Token.EOF) {
+        fetchedEOF = true;
+        trim();
+        return i + 1;
+      }
+    }
+    return n;
+  }
+
+  private Token nextToken() {
+    if (factory == null) return tokenSource.nextToken();
+    factory.lexing = true;
+    try {
+      return tokenSource.nextToken();
+    } finally {
+      factory.lexing = false;
+    }
+  }
+
+  private void add(Token token) {
+    if (size == types.length) {
+      int capacity = size + (size >> 1);
+      types = Arrays.copyOf(types, capacity);
+      channels = Arrays.copyOf(channels, capacity);
+      starts = Arrays.copyOf(starts, capacity);
+      stops = Arrays.copyOf(stops, capacity);
+    }
+    types[size] = (short) token.getType();
+    channels[size] = (byte) token.getChannel();
+    starts[size] = token.getStartIndex();
+    stops[size] = token.getStopIndex();
+
+    int line = token.getLine();
+    if (lineCount == 0 || lineNumbers[lineCount - 1] != line) {
+      if (lineCount == lineNumbers.length) {
+        int capacity = lineCount + (lineCount >> 1);
+        lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+        lineOffsets = Arrays.copyOf(lineOffsets, capacity);
+      }
+      lineNumbers[lineCount] = line;
+      lineOffsets[lineCount] =
+        token.getStartIndex() - token.getCharPositionInLine();
+      lineCount++;
+    }
+
+    boolean hasText = factory != null
+      ? factory.text != null
+      : token.getInputStream() == null;
+    if (hasText) {
+      texts.put(size, token.getText());
+    }
+    if (token instanceof CommonToken) {
+      ((CommonToken) token).setTokenIndex(size);
+    }
+    size++;
+  }
+
+  // Release unused capacity once all tokens are read
+  private void trim() {
+    types = Arrays.copyOf(types, size);
+    channels = Arrays.copyOf(channels, size);
+    starts = Arrays.copyOf(starts, size);
+    stops = Arrays.copyOf(stops, size);
+    lineNumbers = Arrays.copyOf(lineNumbers, lineCount);
+    lineOffsets = Arrays.copyOf(lineOffsets, lineCount);
+  }
+
+  private int lineOf(int start) {
+    int low = 0;
+    int high = lineCount - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (lineOffsets[mid] <= start) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  private int checkIndex(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException(
+        "token index " + i + " out of range 0.." + (size - 1)
+      );
+    }
+    return i;
+  }
+
+  /** A read-only view of a token held by a {@link CompactTokenStream}. */
+  private static final class CompactToken implements Token {
+
+    private final CompactTokenStream stream;
+    private final int index;
+
+    CompactToken(CompactTokenStream stream, int index) {
+      this.stream = stream;
+      this.index = index;
+    }
+
+    @Override
+    public String getText() {
+      return stream.getText(index);
+    }
+
+    @Override
+    public int getType() {
+      return stream.types[index];
+    }
+
+    @Override
+    public int getLine() {
+      return stream.getLine(index);
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+      return stream.getCharPositionInLine(index);
+    }
+
+    @Override
+    public int getChannel() {
+      return stream.channels[index];
+    }
+
+    @Override
+    public int getTokenIndex() {
+      return index;
+    }
+
+    @Override
+    public int getStartIndex() {
+      return stream.starts[index];
+    }
+
+    @Override
+    public int getStopIndex() {
+      return stream.stops[index];
+    }
+
+    @Override
+    public TokenSource getTokenSource() {
+      return stream.tokenSource;
+    }
+
+    @Override
+    public CharStream getInputStream() {
+      return stream.input;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof CompactToken)) return false;
+      CompactToken token = (CompactToken) other;
+      return token.stream == stream && token.index == index;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(stream) * 31 + index;
+    }
+
+    @Override
+    public String toString() {
+      String channelText = getChannel() > 0 ? ",channel=" + getChannel() : "";
+      String text = getText()
+        .replace("\n", "\\n")
+        .replace("\r", "\\r")
+        .replace("\t", "\\t");
+      return (
+        "[@" +
+        index +
+        "," +
+        getStartIndex() +
+        ":" +
+        getStopIndex() +
+        "='" +
+        text +
+        "',<" +
+        getType() +
+        ">" +
+        channelText +
+        "," +
+        getLine() +
+        ":" +
+        getCharPositionInLine() +
+        "]"
+      );
+    }
+  }
+
+  /**
+   * Creates tokens by updating a single instance while this stream is reading
+   * the lexer, as it copies each token before asking for the next. Other
+   * callers, such as an error strategy conjuring up a missing token, get a new
+   * token.
+   */
+  private static final class ReusedTokenFactory
+    implements TokenFactory<CommonToken> {
+
+    private CommonToken token;
+    boolean lexing;
+    String text;
+
+    @Override
+    public CommonToken create(
+      Pair<TokenSource, CharStream> source,
+      int type,
+      String text,
+      int channel,
+      int start,
+      int stop,
+      int line,
+      int charPositionInLine
+    ) {
+      if (!lexing) {
+        return CommonTokenFactory.DEFAULT.create(
+          source,
+          type,
+          text,
+          channel,
+          start,
+          stop,
+          line,
+          charPositionInLine
+        );
+      }
+      if (token == null || token.getTokenSource() != source.a) {
+        token = new CommonToken(source, type, channel, start, stop);
+      }
+      this.text = text;
+      token.setType(type);
+      token.setText(text);
+      token.setChannel(channel);
+      token.setStartIndex(start);
+      token.setStopIndex(stop);
+      token.setLine(line);
+      token.setCharPositionInLine(charPositionInLine);
+      return token;
+    }
+
+    @Override
+    public CommonToken create(int type, String text) {
+      return CommonTokenFactory.DEFAULT.create(type, text);
+    }
+  }
+}
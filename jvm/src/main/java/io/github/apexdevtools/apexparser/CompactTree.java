@@ -0,0 +1,477 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * An immutable parse tree held in a single {@code int[]}, for keeping the
+ * shape of many parsed files in memory.
+ *
+ * <p>Only rule nodes are stored, in pre-order, each as its rule index,
+ * alternative label, start and stop token indexes, subtree size and parent,
+ * 20 bytes a node. Terminals are the tokens within a node's range that are
+ * not covered by a child, so are read from the token stream the tree was
+ * parsed from. Nodes are identified by their position in pre-order, the root
+ * is node 0.
+ *
+ * <p>A tree can be converted from a {@link ParserRuleContext} with
+ * {@link #of}, or built while parsing without creating the full tree with
+ * {@link #parse}. Use {@link #cursor()} to walk a tree.
+ */
+public final class CompactTree {
+
+  // Fields of a node
+  private static final int RULE = 0; // rule index | label << 16
+  private static final int START = 1;
+  private static final int STOP = 2;
+  private static final int SIZE = 3; // nodes in subtree, including this one
+  private static final int PARENT = 4;
+  static final int STRIDE = 5;
+
+  private static final String[] LABELS;
+  private static final Map<Class<?>, Integer> LABEL_INDEXES = new HashMap<>();
+
+  static {
+    // Labelled alternatives have contexts that extend the rule's context
+    List<Class<?>> labelled = new ArrayList<>();
+    for (Class<?> type : ApexParser.class.getDeclaredClasses()) {
+      if (
+        ParserRuleContext.class.isAssignableFrom(type) &&
+        type.getSuperclass() != ParserRuleContext.class
+      ) {
+        labelled.add(type);
+      }
+    }
+    labelled.sort(Comparator.comparing(Class::getSimpleName));
+
+    // 0 is no label
+    LABELS = new String[labelled.size() + 1];
+    for (int i = 0; i < labelled.size(); i++) {
+      String name = labelled.get(i).getSimpleName();
+      LABELS[i + 1] =
+        Character.toLowerCase(name.charAt(0)) +
+        name.substring(1, name.length() - "Context".length());
+      LABEL_INDEXES.put(labelled.get(i), i + 1);
+    }
+  }
+
+  private final int[] nodes;
+
+  CompactTree(int[] nodes) {
+    this.nodes = nodes;
+  }
+
+  int[] getNodes() {
+    return nodes;
+  }
+
+  /** Converts a parse tree, which is not modified. */
+  public static CompactTree of(ParserRuleContext root) {
+    int[] nodes = new int[64 * STRIDE];
+    int count = 0;
+
+    // pre-order, pushing children in reverse so the first is visited first
+    Deque<ParserRuleContext> contexts = new ArrayDeque<>();
+    Deque<Integer> parents = new ArrayDeque<>();
+    contexts.push(root);
+    parents.push(-1);
+    while (!contexts.isEmpty()) {
+      ParserRuleContext ctx = contexts.pop();
+      int parent = parents.pop();
+      if ((count + 1) * STRIDE > nodes.length) {
+        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+      }
+      int start = ctx.getStart().getTokenIndex();
+      int base = count * STRIDE;
+      nodes[base + RULE] = pack(ctx);
+      nodes[base + START] = start;
+      nodes[base + STOP] = ctx.getStop() != null
+        ? ctx.getStop().getTokenIndex()
+        : start - 1;
+      nodes[base + PARENT] = parent;
+      for (int i = ctx.getChildCount() - 1; i >= 0; i--) {
+        ParseTree child = ctx.getChild(i);
+        if (child instanceof ParserRuleContext) {
+          contexts.push((ParserRuleContext) child);
+          parents.push(count);
+        }
+      }
+      count++;
+    }
+    return new CompactTree(withSizes(nodes, count));
+  }
+
+  /**
+   * Parses with the given rule, building a compact tree from parse events
+   * rather than converting a complete tree. The parser is set to not build a
+   * parse tree, so rule contexts can be collected as soon as each rule
+   * completes. Parsing uses the two-stage strategy of
+   * {@link ApexParserFactory#parse}.
+   */
+  public static CompactTree parse(
+    ApexParser parser,
+    Function<ApexParser, ? extends ParserRuleContext> rule
+  ) {
+    boolean buildParseTree = parser.getBuildParseTree();
+    Builder builder = new Builder(parser);
+    parser.setBuildParseTree(false);
+    parser.addParseListener(builder);
+    try {
+      ApexParserFactory.parse(parser, rule);
+    } finally {
+      parser.removeParseListener(builder);
+      parser.setBuildParseTree(buildParseTree);
+    }
+    return builder.build();
+  }
+
+  /** Number of nodes in the tree. */
+  public int size() {
+    return nodes.length / STRIDE;
+  }
+
+  /** The rule index of a node, one of the {@code ApexParser.RULE_} values. */
+  public int getRuleIndex(int node) {
+    return nodes[node * STRIDE + RULE] & 0xFFFF;
+  }
+
+  public String getRuleName(int node) {
+    return ApexParser.ruleNames[getRuleIndex(node)];
+  }
+
+  /**
+   * The alternative label of a node as written in the grammar, such as
+   * {@code dotExpression}, or null if the alternative is not labelled.
+   */
+  public String getLabel(int node) {
+    return LABELS[nodes[node * STRIDE + RULE] >>> 16];
+  }
+
+  public int getStartTokenIndex(int node) {
+    return nodes[node * STRIDE + START];
+  }
+
+  /**
+   * The index of the last token of a node, less than the start index when the
+   * node matched no tokens.
+   */
+  public int getStopTokenIndex(int node) {
+    return nodes[node * STRIDE + STOP];
+  }
+
+  /** The parent of a node, or -1 for the root. */
+  public int getParent(int node) {
+    return nodes[node * STRIDE + PARENT];
+  }
+
+  /** The first child of a node, or -1 if it has none. */
+  public int getFirstChild(int node) {
+    return nodes[node * STRIDE + SIZE] > 1 ? node + 1 : -1;
+  }
+
+  /** The next sibling of a node, or -1 if it is the last child. */
+  public int getNextSibling(int node) {
+    int parent = getParent(node);
+    if (parent == -1) return -1;
+    int next = node + nodes[node * STRIDE + SIZE];
+    return next < parent + nodes[parent * STRIDE + SIZE] ? next : -1;
+  }
+
+  public int getChildCount(int node) {
+    int count = 0;
+    for (int c = getFirstChild(node); c != -1; c = getNextSibling(c)) count++;
+    return count;
+  }
+
+  /** A cursor positioned at the root. */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * A position in the tree that can be moved between parents, children and
+   * siblings without allocating.
+   */
+  public final class Cursor {
+
+    private int node = 0;
+
+    private Cursor() {}
+
+    public int getNode() {
+      return node;
+    }
+
+    public int getRuleIndex() {
+      return CompactTree.this.getRuleIndex(node);
+    }
+
+    public String getRuleName() {
+      return CompactTree.this.getRuleName(node);
+    }
+
+    public String getLabel() {
+      return CompactTree.this.getLabel(node);
+    }
+
+    public int getStartTokenIndex() {
+      return CompactTree.this.getStartTokenIndex(node);
+    }
+
+    public int getStopTokenIndex() {
+      return CompactTree.this.getStopTokenIndex(node);
+    }
+
+    /** Moves to the first child, returning false if there are none. */
+    public boolean gotoFirstChild() {
+      return moveTo(getFirstChild(node));
+    }
+
+    /** Moves to the next sibling, returning false if there is none. */
+    public boolean gotoNextSibling() {
+      return moveTo(getNextSibling(node));
+    }
+
+    /** Moves to the parent, returning false at the root. */
+    public boolean gotoParent() {
+      return moveTo(getParent(node));
+    }
+
+    /** Moves to any node of the tree. */
+    public void reset(int node) {
+      if (node < 0 || node >= size()) {
+        throw new IndexOutOfBoundsException("Node " + node);
+      }
+      this.node = node;
+    }
+
+    private boolean moveTo(int target) {
+      if (target == -1) return false;
+      node = target;
+      return true;
+    }
+  }
+
+  private static int pack(ParserRuleContext ctx) {
+    Integer label = LABEL_INDEXES.get(ctx.getClass());
+    return ctx.getRuleIndex() | (label != null ? label << 16 : 0);
+  }
+
+  // Trims to count nodes and sets subtree sizes, children follow parents
+  private static int[] withSizes(int[] nodes, int count) {
+    int[] result = Arrays.copyOf(nodes, count * STRIDE);
+    for (int node = count - 1; node >= 0; node--) {
+      int base = node * STRIDE;
+      result[base + SIZE] += 1;
+      int parent = result[base + PARENT];
+      if (parent != -1) result[parent * STRIDE + SIZE] += result[base + SIZE];
+    }
+    return result;
+  }
+
+  /**
+   * Builds a tree from parse listener events. Left-recursive rules are
+   * reported with the left operand exited before the enclosing context is
+   * entered, so the enclosing node is inserted above it. If the parse is
+   * restarted, as by the second stage of a two-stage parse, the nodes from
+   * the first attempt are discarded.
+   */
+  static final class Builder implements ParseTreeListener {
+
+    private static final BitSet LEFT_RECURSIVE = leftRecursiveRules();
+
+    // Fields of a node while building, children are linked lists
+    private static final int B_RULE = 0;
+    private static final int B_START = 1;
+    private static final int B_STOP = 2;
+    private static final int B_INVOKING = 3;
+    private static final int B_PARENT = 4;
+    private static final int B_FIRST = 5;
+    private static final int B_LAST = 6;
+    private static final int B_NEXT = 7;
+    private static final int B_PREV = 8;
+    private static final int B_STRIDE = 9;
+
+    private final Parser parser;
+    private int[] nodes = new int[256 * B_STRIDE];
+    private int count = 0;
+    private int open = -1;
+    private int lastExited = -1;
+
+    Builder(Parser parser) {
+      this.parser = parser;
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+      if (open == -1) {
+        // a new parse
+        count = 0;
+        lastExited = -1;
+      }
+
+      int rule = ctx.getRuleIndex();
+      int start = ctx.getStart().getTokenIndex();
+      int node = add();
+      set(node, B_RULE, rule);
+      set(node, B_START, start);
+      set(node, B_INVOKING, ctx.invokingState);
+
+      int left = lastExited;
+      if (
+        left != -1 &&
+        LEFT_RECURSIVE.get(rule) &&
+        (get(left, B_RULE) & 0xFFFF) == rule &&
+        get(left, B_START) == start &&
+        get(left, B_INVOKING) == ctx.invokingState &&
+        get(left, B_PARENT) == open
+      ) {
+        // replace the left operand by this node, which becomes its parent
+        int prev = get(left, B_PREV);
+        link(node, open, prev);
+        set(left, B_PARENT, node);
+        set(left, B_PREV, -1);
+        set(node, B_FIRST, left);
+        set(node, B_LAST, left);
+      } else {
+        link(node, open, open != -1 ? get(open, B_LAST) : -1);
+      }
+      open = node;
+      lastExited = -1;
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+      int stop;
+      if (ctx.getStop() != null) {
+        stop = ctx.getStop().getTokenIndex();
+      } else {
+        // not yet set on the left operand of a left-recursive rule
+        Token last = parser.getInputStream().LT(-1);
+        stop = last != null ? last.getTokenIndex() : get(open, B_START) - 1;
+      }
+      Integer label = LABEL_INDEXES.get(ctx.getClass());
+      if (label != null) set(open, B_RULE, get(open, B_RULE) | label << 16);
+      set(open, B_STOP, stop);
+      lastExited = open;
+      open = get(open, B_PARENT);
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+      lastExited = -1;
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+      lastExited = -1;
+    }
+
+    CompactTree build() {
+      if (count == 0 || open != -1) {
+        throw new IllegalStateException("Parse is not complete");
+      }
+
+      int[] result = new int[count * STRIDE];
+      int index = 0;
+      Deque<Integer> pending = new ArrayDeque<>();
+      Deque<Integer> parents = new ArrayDeque<>();
+      pending.push(0);
+      parents.push(-1);
+      while (!pending.isEmpty()) {
+        int node = pending.pop();
+        int base = index * STRIDE;
+        result[base + RULE] = get(node, B_RULE);
+        result[base + START] = get(node, B_START);
+        result[base + STOP] = get(node, B_STOP);
+        result[base + PARENT] = parents.pop();
+        for (int c = get(node, B_LAST); c != -1; c = get(c, B_PREV)) {
+          pending.push(c);
+          parents.push(index);
+        }
+        index++;
+      }
+      return new CompactTree(withSizes(result, count));
+    }
+
+    private int add() {
+      if ((count + 1) * B_STRIDE > nodes.length) {
+        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+      }
+      int node = count++;
+      Arrays.fill(nodes, node * B_STRIDE, (node + 1) * B_STRIDE, -1);
+      return node;
+    }
+
+    // Appends node to the children of parent, after prev
+    private void link(int node, int parent, int prev) {
+      set(node, B_PARENT, parent);
+      set(node, B_PREV, prev);
+      set(node, B_NEXT, -1);
+      if (parent == -1) return;
+      if (prev == -1) set(parent, B_FIRST, node);
+      else set(prev, B_NEXT, node);
+      set(parent, B_LAST, node);
+    }
+
+    private int get(int node, int field) {
+      return nodes[node * B_STRIDE + field];
+    }
+
+    private void set(int node, int field, int value) {
+      nodes[node * B_STRIDE + field] = value;
+    }
+
+    private static BitSet leftRecursiveRules() {
+      ATN atn = ApexParser._ATN;
+      BitSet rules = new BitSet();
+      for (int i = 0; i < atn.ruleToStartState.length; i++) {
+        if (atn.ruleToStartState[i].isLeftRecursiveRule) rules.set(i);
+      }
+      return rules;
+    }
+  }
+}
@@ -0,0 +1,453 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BufferedTokenStream;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+/**
+ * Keeps the text, tokens and parse tree of a source file up to date as it is
+ * edited, re-lexing and re-parsing only the region affected by each edit.
+ *
+ * <p>For an edit, lexing restarts a token before the change and continues
+ * until a token lines up with one from the previous text, the remaining
+ * tokens are reused with adjusted positions. If only whitespace or comments
+ * changed the tree is kept as is. Otherwise the smallest
+ * {@code classBodyDeclaration} or {@code block} that strictly contains the
+ * re-lexed tokens is parsed again and spliced into the existing tree, moving
+ * outwards if the new parse does not end at the same token. Nodes outside the
+ * re-parsed region, and tokens outside the re-lexed region, are kept, so
+ * callers should not hold on to nodes from within an edited region.
+ *
+ * <p>Whenever the previous or new text has a syntax error, the whole file is
+ * parsed again, so the error listener sees the same errors as a full parse of
+ * the current text. Offsets are code point indexes, as used by
+ * {@link Token#getStartIndex()}. Re-lexed tokens are detached from the lexer
+ * and its input, so they have no token source or input stream.
+ *
+ * <p>Instances are not thread safe.
+ */
+public final class IncrementalParser<T extends ParserRuleContext> {
+
+  private final Function<ApexParser, T> rule;
+  private final ApexErrorListener errorListener;
+  private String text;
+  private List<Token> tokens;
+  private T tree;
+  private boolean hasErrors;
+  private ParserRuleContext lastReparsed;
+
+  public IncrementalParser(
+    String text,
+    Function<ApexParser, T> rule,
+    ApexErrorListener errorListener
+  ) {
+    this.rule = rule;
+    this.errorListener = errorListener;
+    parseAll(text);
+  }
+
+  /** Creates an incremental parser for a class file. */
+  public static IncrementalParser<
+    ApexParser.CompilationUnitContext
+  > forCompilationUnit(String text, ApexErrorListener errorListener) {
+    return new IncrementalParser<>(
+      text,
+      ApexParser::compilationUnit,
+      errorListener
+    );
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  /** All tokens of the current text, including hidden channel tokens. */
+  public List<Token> getTokens() {
+    return Collections.unmodifiableList(tokens);
+  }
+
+  public T getTree() {
+    return tree;
+  }
+
+  /** True if the last parse reported a syntax error. */
+  public boolean hasErrors() {
+    return hasErrors;
+  }
+
+  /**
+   * The node parsed by the last edit, the root when the whole file was parsed
+   * or null when no parse was needed.
+   */
+  public ParserRuleContext getLastReparsed() {
+    return lastReparsed;
+  }
+
+  /**
+   * Replaces {@code length} code points at {@code offset} with
+   * {@code replacement} and updates the tokens and tree to match.
+   *
+   * @return the updated tree, the same instance unless the whole file was
+   *     parsed again
+   */
+  public T edit(int offset, int length, String replacement) {
+    int size = text.codePointCount(0, text.length());
+    if (offset < 0 || length < 0 || offset + length > size) {
+      throw new IndexOutOfBoundsException(
+        "Edit " + offset + ":" + length + " outside text of length " + size
+      );
+    }
+    int begin = text.offsetByCodePoints(0, offset);
+    int end = text.offsetByCodePoints(begin, length);
+    String newText = text.substring(0, begin) + replacement + text.substring(end);
+    int inserted = replacement.codePointCount(0, replacement.length());
+    if (length == 0 && inserted == 0) {
+      lastReparsed = null;
+      return tree;
+    }
+
+    if (hasErrors || !reparse(newText, offset, length, inserted)) {
+      parseAll(newText);
+    }
+    return tree;
+  }
+
+  private boolean reparse(String newText, int offset, int length, int inserted) {
+    int delta = inserted - length;
+    int oldEnd = offset + length;
+    int newEnd = offset + inserted;
+
+    // Restart from the token before the one touching the edit, as lexing it
+    // may have looked ahead into the changed text
+    int first = 0;
+    while (tokens.get(first).getStopIndex() < offset - 1) first++;
+    first = Math.max(first - 1, 0);
+
+    ErrorCounter lexerErrors = new ErrorCounter(null);
+    CharStream input = CharStreams.fromString(newText);
+    ApexLexer lexer = ApexParserFactory.createLexer(input);
+    lexer.addErrorListener(lexerErrors);
+    Token restart = tokens.get(first);
+    input.seek(restart.getStartIndex());
+    lexer.setLine(restart.getLine());
+    lexer.setCharPositionInLine(restart.getCharPositionInLine());
+
+    List<Token> relexed = new ArrayList<>();
+    int sync = first;
+    Token syncToken = null;
+    while (true) {
+      Token token = lexer.nextToken();
+      if (token.getStartIndex() >= newEnd) {
+        int oldStart = token.getStartIndex() - delta;
+        while (
+          sync < tokens.size() && tokens.get(sync).getStartIndex() < oldStart
+        ) {
+          sync++;
+        }
+        if (sync < tokens.size() && isSame(tokens.get(sync), token, delta)) {
+          syncToken = token;
+          break;
+        }
+      }
+      relexed.add(detach(token));
+      if (token.getType() == Token.EOF) break;
+    }
+    if (lexerErrors.count > 0 || syncToken == null) return false;
+
+    // Drop leading tokens that ended before the edit and were lexed the same
+    int same = 0;
+    while (
+      same < relexed.size() &&
+      first + same < sync &&
+      relexed.get(same).getStopIndex() < offset &&
+      isSame(tokens.get(first + same), relexed.get(same), 0)
+    ) {
+      same++;
+    }
+    relexed.subList(0, same).clear();
+    first += same;
+
+    // Reuse the previous default channel tokens if only hidden tokens changed
+    List<Token> damaged = tokens.subList(first, sync);
+    boolean hiddenOnly = sameDefaultTokens(damaged, relexed);
+    if (hiddenOnly) {
+      int next = 0;
+      for (int i = 0; i < relexed.size(); i++) {
+        Token token = relexed.get(i);
+        if (token.getChannel() != Token.DEFAULT_CHANNEL) continue;
+        while (damaged.get(next).getChannel() != Token.DEFAULT_CHANNEL) next++;
+        CommonToken previous = (CommonToken) damaged.get(next++);
+        previous.setText(token.getText());
+        previous.setStartIndex(token.getStartIndex());
+        previous.setStopIndex(token.getStopIndex());
+        previous.setLine(token.getLine());
+        previous.setCharPositionInLine(token.getCharPositionInLine());
+        relexed.set(i, previous);
+      }
+    }
+
+    // Find regions to parse before token indexes are shifted
+    List<ParserRuleContext> candidates = enclosing(first, sync - 1);
+    if (!hiddenOnly && candidates.isEmpty()) return false;
+
+    List<Token> newTokens = new ArrayList<>(
+      tokens.size() - damaged.size() + relexed.size()
+    );
+    newTokens.addAll(tokens.subList(0, first));
+    newTokens.addAll(relexed);
+    int tokenDelta = relexed.size() - damaged.size();
+    shift(tokens.subList(sync, tokens.size()), syncToken, delta, tokenDelta);
+    newTokens.addAll(tokens.subList(sync, tokens.size()));
+    for (int i = first; i < sync + tokenDelta; i++) {
+      ((CommonToken) newTokens.get(i)).setTokenIndex(i);
+    }
+
+    tokens = newTokens;
+    text = newText;
+    if (hiddenOnly) {
+      lastReparsed = null;
+      return true;
+    }
+
+    // Parse the innermost candidate that still ends at the same token
+    for (int i = candidates.size() - 1; i >= 0; i--) {
+      ParserRuleContext candidate = candidates.get(i);
+      int start = candidate.getStart().getTokenIndex();
+      int stop = candidate.getStop().getTokenIndex();
+
+      ApexParser parser = ApexParserFactory.createParser(
+        new TokenListStream(tokens)
+      );
+      parser.setErrorHandler(new BailErrorStrategy());
+      parser.getInputStream().seek(start);
+      ParserRuleContext result;
+      try {
+        result = ApexParserFactory.parse(
+          parser,
+          candidate instanceof ApexParser.BlockContext
+            ? ApexParser::block
+            : ApexParser::classBodyDeclaration
+        );
+      } catch (ParseCancellationException ex) {
+        break;
+      }
+      if (result.getStop().getTokenIndex() == stop) {
+        splice(candidate, result);
+        lastReparsed = result;
+        return true;
+      }
+    }
+
+    // Tokens are already updated, so parse the whole file from them
+    parseAll(newText);
+    return true;
+  }
+
+  private void parseAll(String newText) {
+    ErrorCounter errors = new ErrorCounter(errorListener);
+    ApexParserFactory.LexerAndParser pair = ApexParserFactory.createLexerAndParser(
+      CharStreams.fromString(newText),
+      errors
+    );
+    ApexParser parser = pair.getParser();
+    tree = ApexParserFactory.parse(parser, rule);
+    BufferedTokenStream stream = (BufferedTokenStream) parser.getInputStream();
+    stream.fill();
+
+    text = newText;
+    tokens = new ArrayList<>(stream.getTokens());
+    hasErrors = errors.count > 0;
+    lastReparsed = tree;
+  }
+
+  /**
+   * The {@code classBodyDeclaration} and {@code block} nodes that strictly
+   * contain the given token range, outermost first.
+   */
+  private List<ParserRuleContext> enclosing(int from, int to) {
+    List<ParserRuleContext> result = new ArrayList<>();
+    ParserRuleContext node = tree;
+    while (node != null) {
+      ParserRuleContext next = null;
+      for (int i = 0; i < node.getChildCount(); i++) {
+        ParseTree child = node.getChild(i);
+        if (child instanceof ParserRuleContext) {
+          ParserRuleContext context = (ParserRuleContext) child;
+          if (
+            context.getStart().getTokenIndex() < from &&
+            context.getStop() != null &&
+            context.getStop().getTokenIndex() > to
+          ) {
+            next = context;
+            break;
+          }
+        }
+      }
+      if (
+        next instanceof ApexParser.BlockContext ||
+        next instanceof ApexParser.ClassBodyDeclarationContext
+      ) {
+        result.add(next);
+      }
+      node = next;
+    }
+    return result;
+  }
+
+  private static void splice(
+    ParserRuleContext previous,
+    ParserRuleContext replacement
+  ) {
+    ParserRuleContext parent = previous.getParent();
+    for (int i = 0; i < parent.children.size(); i++) {
+      if (parent.children.get(i) == previous) {
+        parent.children.set(i, replacement);
+        break;
+      }
+    }
+    replacement.setParent(parent);
+    replacement.invokingState = previous.invokingState;
+  }
+
+  /** Moves tokens after the edit to their new positions. */
+  private static void shift(
+    List<Token> suffix,
+    Token syncToken,
+    int delta,
+    int tokenDelta
+  ) {
+    Token first = suffix.get(0);
+    int syncLine = first.getLine();
+    int lineDelta = syncToken.getLine() - syncLine;
+    int columnDelta =
+      syncToken.getCharPositionInLine() - first.getCharPositionInLine();
+    for (Token t : suffix) {
+      CommonToken token = (CommonToken) t;
+      // Keep the text, positions no longer match the original input
+      token.setText(token.getText());
+      token.setStartIndex(token.getStartIndex() + delta);
+      token.setStopIndex(token.getStopIndex() + delta);
+      token.setTokenIndex(token.getTokenIndex() + tokenDelta);
+      if (token.getLine() == syncLine) {
+        token.setCharPositionInLine(
+          token.getCharPositionInLine() + columnDelta
+        );
+      }
+      token.setLine(token.getLine() + lineDelta);
+    }
+  }
+
+  private static boolean isSame(Token previous, Token token, int delta) {
+    return (
+      previous.getStartIndex() + delta == token.getStartIndex() &&
+      previous.getStopIndex() + delta == token.getStopIndex() &&
+      previous.getType() == token.getType() &&
+      previous.getChannel() == token.getChannel()
+    );
+  }
+
+  private static boolean sameDefaultTokens(
+    List<Token> previous,
+    List<Token> tokens
+  ) {
+    int i = 0;
+    int j = 0;
+    while (true) {
+      while (
+        i < previous.size() &&
+        previous.get(i).getChannel() != Token.DEFAULT_CHANNEL
+      ) {
+        i++;
+      }
+      while (
+        j < tokens.size() && tokens.get(j).getChannel() != Token.DEFAULT_CHANNEL
+      ) {
+        j++;
+      }
+      if (i == previous.size() || j == tokens.size()) {
+        return i == previous.size() && j == tokens.size();
+      }
+      Token a = previous.get(i++);
+      Token b = tokens.get(j++);
+      if (a.getType() != b.getType() || !a.getText().equals(b.getText())) {
+        return false;
+      }
+    }
+  }
+
+  /** Copies a token without a reference to the lexer's input. */
+  private static Token detach(Token token) {
+    CommonToken copy = new CommonToken(token.getType(), token.getText());
+    copy.setChannel(token.getChannel());
+    copy.setStartIndex(token.getStartIndex());
+    copy.setStopIndex(token.getStopIndex());
+    copy.setLine(token.getLine());
+    copy.setCharPositionInLine(token.getCharPositionInLine());
+    return copy;
+  }
+
+  /** A token stream over an existing list of tokens. */
+  private static final class TokenListStream extends CommonTokenStream {
+
+    TokenListStream(List<Token> list) {
+      super(new ListTokenSource(list));
+      tokens = list;
+      fetchedEOF = true;
+    }
+  }
+
+  private static final class ErrorCounter extends ApexErrorListener {
+
+    private final ApexErrorListener delegate;
+    int count = 0;
+
+    ErrorCounter(ApexErrorListener delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void apexSyntaxError(int line, int column, String msg) {
+      count++;
+      if (delegate != null) delegate.apexSyntaxError(line, column, msg);
+    }
+  }
+}
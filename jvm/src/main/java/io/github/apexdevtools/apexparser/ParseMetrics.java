@@ -0,0 +1,190 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+/**
+ * Measurements of a single parse, reported to a {@link Listener} by
+ * {@link ApexParserFactory#parse(ApexParser, java.util.function.Function,
+ * Listener)}. Check can aggregate these over a directory, see
+ * {@link Check.CheckOptions#metricsFile}.
+ */
+public final class ParseMetrics {
+
+  /** Receives the metrics of each parse, on the parsing thread. */
+  @FunctionalInterface
+  public interface Listener {
+    void parsed(ParseMetrics metrics);
+  }
+
+  private final long lexNanos;
+  private final long parseNanos;
+  private final int tokenCount;
+  private final int nodeCount;
+  private final boolean fallback;
+  private final int fullContextPredictions;
+  private final int errorCount;
+  private final int maxLookahead;
+
+  ParseMetrics(
+    long lexNanos,
+    long parseNanos,
+    int tokenCount,
+    int nodeCount,
+    boolean fallback,
+    int fullContextPredictions,
+    int errorCount,
+    int maxLookahead
+  ) {
+    this.lexNanos = lexNanos;
+    this.parseNanos = parseNanos;
+    this.tokenCount = tokenCount;
+    this.nodeCount = nodeCount;
+    this.fallback = fallback;
+    this.fullContextPredictions = fullContextPredictions;
+    this.errorCount = errorCount;
+    this.maxLookahead = maxLookahead;
+  }
+
+  /** Time spent reading tokens from the lexer. */
+  public long getLexNanos() {
+    return lexNanos;
+  }
+
+  /** Time spent parsing, including both stages if the first failed. */
+  public long getParseNanos() {
+    return parseNanos;
+  }
+
+  public long getTotalNanos() {
+    return lexNanos + parseNanos;
+  }
+
+  /** Number of tokens in the token stream, including EOF. */
+  public int getTokenCount() {
+    return tokenCount;
+  }
+
+  /**
+   * Number of rule and terminal nodes in the returned tree, 0 if the parse
+   * did not return normally.
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * True if the SLL stage failed and the input was parsed again in LL mode.
+   * This happens for all input with syntax errors.
+   */
+  public boolean isFallback() {
+    return fallback;
+  }
+
+  /**
+   * Number of LL mode predictions where SLL prediction found a conflict and
+   * full context prediction was needed.
+   */
+  public int getFullContextPredictions() {
+    return fullContextPredictions;
+  }
+
+  /**
+   * Number of syntax errors reported. Lexer errors are only counted when the
+   * token stream reads directly from a lexer.
+   */
+  public int getErrorCount() {
+    return errorCount;
+  }
+
+  /**
+   * Most tokens examined by a single prediction, or -1 if the parser was not
+   * created by {@link ApexParserFactory}.
+   */
+  public int getMaxLookahead() {
+    return maxLookahead;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+      Locale.ROOT,
+      "lex %.3f ms, parse %.3f ms, %d tokens, %d nodes, %s, " +
+      "%d full context, %d errors, max lookahead %d",
+      lexNanos / 1e6,
+      parseNanos / 1e6,
+      tokenCount,
+      nodeCount,
+      fallback ? "LL" : "SLL",
+      fullContextPredictions,
+      errorCount,
+      maxLookahead
+    );
+  }
+
+  static int countNodes(ParseTree tree) {
+    if (tree == null) return 0;
+    int count = 0;
+    Deque<ParseTree> pending = new ArrayDeque<>();
+    pending.push(tree);
+    while (!pending.isEmpty()) {
+      ParseTree node = pending.pop();
+      count++;
+      for (int i = 0; i < node.getChildCount(); i++) {
+        pending.push(node.getChild(i));
+      }
+    }
+    return count;
+  }
+
+  /** Counts errors reported by the lexer and parser during a parse. */
+  static final class Recorder extends BaseErrorListener {
+
+    int errorCount = 0;
+    boolean fallback = false;
+
+    @Override
+    public void syntaxError(
+      Recognizer<?, ?> recognizer,
+      Object offendingSymbol,
+      int line,
+      int charPositionInLine,
+      String msg,
+      RecognitionException e
+    ) {
+      errorCount++;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+/** A parse tree with the syntax errors reported while parsing it. */
+public final class ParseResult<T extends ParserRuleContext> {
+
+  private final T tree;
+  private final List<SyntaxError> errors;
+
+  ParseResult(T tree, List<SyntaxError> errors) {
+    this.tree = tree;
+    this.errors = Collections.unmodifiableList(errors);
+  }
+
+  public T getTree() {
+    return tree;
+  }
+
+  /** Lexer and parser errors in the order they were reported. */
+  public List<SyntaxError> getErrors() {
+    return errors;
+  }
+
+  public boolean hasErrors() {
+    return !errors.isEmpty();
+  }
+
+  /** A lexer or parser error. */
+  public static final class SyntaxError {
+
+    private final int line;
+    private final int column;
+    private final String message;
+
+    SyntaxError(int line, int column, String message) {
+      this.line = line;
+      this.column = column;
+      this.message = message;
+    }
+
+    /** Line of the error, from 1. */
+    public int getLine() {
+      return line;
+    }
+
+    /** Column of the error, from 0. */
+    public int getColumn() {
+      return column;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public String toString() {
+      return line + ":" + column + " " + message;
+    }
+  }
+
+  /** Collects lexer and parser errors for a result. */
+  static final class ErrorCollector extends ApexErrorListener {
+
+    final List<SyntaxError> errors = new ArrayList<>();
+
+    @Override
+    public void apexSyntaxError(int line, int column, String msg) {
+      errors.add(new SyntaxError(line, column, msg));
+    }
+  }
+}
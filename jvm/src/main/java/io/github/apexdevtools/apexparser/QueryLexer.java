@@ -0,0 +1,110 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * An {@link ApexLexer} for standalone SOQL and SOSL strings. A SOSL search
+ * that starts with {@code FIND 'term'} or {@code FIND {term}} is lexed as a
+ * {@code FindLiteral} or {@code FindLiteralAlt} token, as in Apex but without
+ * the opening bracket. All other input is lexed as by {@code ApexLexer}.
+ */
+final class QueryLexer extends ApexLexer {
+
+  private boolean started = false;
+
+  QueryLexer(CharStream input) {
+    super(input);
+  }
+
+  @Override
+  public Token nextToken() {
+    if (!started) {
+      int length = findLiteralLength();
+      if (length > 0) {
+        started = true;
+        return emitFindLiteral(length);
+      }
+    }
+
+    Token token = super.nextToken();
+    started |= token.getChannel() == Token.DEFAULT_CHANNEL;
+    return token;
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    started = false;
+  }
+
+  private Token emitFindLiteral(int length) {
+    _token = null;
+    _channel = Token.DEFAULT_CHANNEL;
+    _tokenStartCharIndex = _input.index();
+    _tokenStartCharPositionInLine = getInterpreter().getCharPositionInLine();
+    _tokenStartLine = getInterpreter().getLine();
+    _text = null;
+    _type = _input.LA(length) == '}' ? FindLiteralAlt : FindLiteral;
+    for (int i = 0; i < length; i++) {
+      getInterpreter().consume(_input);
+    }
+    return emit();
+  }
+
+  // Length of a find literal at the current position, or zero
+  private int findLiteralLength() {
+    int i = 1;
+    for (char c : new char[] { 'f', 'i', 'n', 'd' }) {
+      if (Character.toLowerCase(_input.LA(i++)) != c) return 0;
+    }
+    if (!isWhitespace(_input.LA(i))) return 0;
+    while (isWhitespace(_input.LA(i))) i++;
+
+    int open = _input.LA(i++);
+    int close = open == '{' ? '}' : open;
+    if (open != '\'' && open != '{') return 0;
+    while (true) {
+      int c = _input.LA(i++);
+      if (c == close) return i - 1;
+      if (c == IntStream.EOF) return 0;
+      if (c == '\\' && !isEscaped(_input.LA(i++))) return 0;
+    }
+  }
+
+  private static boolean isWhitespace(int c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f';
+  }
+
+  private static boolean isEscaped(int c) {
+    return c >= 0 && "+-&|!(){}^\"~*?:'\\".indexOf(c) >= 0;
+  }
+}
@@ -0,0 +1,419 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.antlr.v4.runtime.CharStream;
+
+/**
+ * A binary form of a parsed file, its {@link CompactTokenStream} and
+ * {@link CompactTree}, for caching parse results between processes.
+ *
+ * <p>The format holds the token and node arrays as they are in memory, little
+ * endian and 4 byte aligned, so reading is a bulk copy of each array rather
+ * than lexing and parsing. {@link #read(Path)} memory maps the file and only
+ * copies an array when it is first needed. Source text is not included, it is
+ * supplied when the token stream is restored, so results are normally stored
+ * under a hash of the source.
+ *
+ * <p>Each result records the grammar fingerprint it was written with, results
+ * from a different grammar or parser version fail to read.
+ */
+public final class SerializedParse {
+
+  private static final int MAGIC = 0x50585041; // APXP
+  private static final int FORMAT = 1;
+  private static final int FINGERPRINT_BYTES = 64;
+  private static final int HEADER_BYTES = 4 * 4 + FINGERPRINT_BYTES + 5 * 4;
+
+  private static volatile byte[] fingerprint;
+
+  private final ByteBuffer buffer;
+  private final int sourceSize;
+  private final int tokenCount;
+  private final int lineCount;
+  private final int nodeCount;
+  private final int textCount;
+
+  private SerializedParse(
+    ByteBuffer buffer,
+    int sourceSize,
+    int tokenCount,
+    int lineCount,
+    int nodeCount,
+    int textCount
+  ) {
+    this.buffer = buffer;
+    this.sourceSize = sourceSize;
+    this.tokenCount = tokenCount;
+    this.lineCount = lineCount;
+    this.nodeCount = nodeCount;
+    this.textCount = textCount;
+  }
+
+  /**
+   * Serializes a token stream and the tree parsed from it. The stream is
+   * filled first, so all tokens are included.
+   */
+  public static ByteBuffer write(CompactTokenStream tokens, CompactTree tree) {
+    tokens.fill();
+    int count = tokens.size();
+
+    // Rebuild the line table, one entry per line a token starts on
+    int[] lineNumbers = new int[Math.max(count, 1)];
+    int[] lineOffsets = new int[lineNumbers.length];
+    int lines = 0;
+    Map<Integer, byte[]> texts = new HashMap<>();
+    int textBytes = 0;
+    for (int i = 0; i < count; i++) {
+      int line = tokens.getLine(i);
+      if (lines == 0 || lineNumbers[lines - 1] != line) {
+        lineNumbers[lines] = line;
+        lineOffsets[lines] =
+          tokens.getStartIndex(i) - tokens.getCharPositionInLine(i);
+        lines++;
+      }
+      String text = tokens.getSetText(i);
+      if (text != null) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        texts.put(i, bytes);
+        textBytes += 8 + align(bytes.length);
+      }
+    }
+
+    int[] nodes = tree.getNodes();
+    int size =
+      HEADER_BYTES +
+      align(count * 2) +
+      align(count) +
+      count * 8 +
+      lines * 8 +
+      nodes.length * 4 +
+      textBytes;
+    ByteBuffer buffer = ByteBuffer
+      .allocate(size)
+      .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC);
+    buffer.putInt(FORMAT);
+    buffer.putInt(size);
+    buffer.putInt(0); // reserved
+    buffer.put(grammarFingerprint());
+    buffer.putInt(tokens.getTokenSource().getInputStream().size());
+    buffer.putInt(count);
+    buffer.putInt(lines);
+    buffer.putInt(tree.size());
+    buffer.putInt(texts.size());
+
+    for (int i = 0; i < count; i++) {
+      buffer.putShort((short) tokens.getType(i));
+    }
+    pad(buffer);
+    for (int i = 0; i < count; i++) {
+      buffer.put((byte) tokens.getChannel(i));
+    }
+    pad(buffer);
+    for (int i = 0; i < count; i++) {
+      buffer.putInt(tokens.getStartIndex(i));
+    }
+    for (int i = 0; i < count; i++) {
+      buffer.putInt(tokens.getStopIndex(i));
+    }
+    putInts(buffer, lineNumbers, lines);
+    putInts(buffer, lineOffsets, lines);
+    putInts(buffer, nodes, nodes.length);
+    for (Map.Entry<Integer, byte[]> text : texts.entrySet()) {
+      buffer.putInt(text.getKey());
+      buffer.putInt(text.getValue().length);
+      buffer.put(text.getValue());
+      pad(buffer);
+    }
+
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Writes a token stream and tree to a file. The file is replaced atomically
+   * where supported, so concurrent readers see either the old or new content.
+   */
+  public static void write(
+    Path file,
+    CompactTokenStream tokens,
+    CompactTree tree
+  ) throws IOException {
+    ByteBuffer buffer = write(tokens, tree);
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) Files.createDirectories(parent);
+
+    Path temp = Files.createTempFile(
+      parent,
+      file.getFileName().toString(),
+      ".tmp"
+    );
+    try {
+      try (
+        FileChannel channel = FileChannel.open(
+          temp,
+          StandardOpenOption.WRITE
+        )
+      ) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Reads a serialized parse from a buffer, which is used directly rather than
+   * copied, so must not be modified while the result is in use.
+   *
+   * @throws IOException if the content is not a serialized parse, is
+   * truncated, or was written with a different grammar
+   */
+  public static SerializedParse read(ByteBuffer buffer) throws IOException {
+    ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+      throw new IOException("Not a serialized parse");
+    }
+    if (in.getInt() != FORMAT) {
+      throw new IOException("Unsupported serialized parse format");
+    }
+    int size = in.getInt();
+    in.getInt();
+    if (size != in.limit()) {
+      throw new IOException("Serialized parse is truncated");
+    }
+    byte[] written = new byte[FINGERPRINT_BYTES];
+    in.get(written);
+    if (!Arrays.equals(written, grammarFingerprint())) {
+      throw new IOException("Serialized parse is for a different grammar");
+    }
+
+    int sourceSize = in.getInt();
+    int tokenCount = in.getInt();
+    int lineCount = in.getInt();
+    int nodeCount = in.getInt();
+    int textCount = in.getInt();
+    long minimum =
+      HEADER_BYTES +
+      align(tokenCount * 2L) +
+      align(tokenCount) +
+      tokenCount * 8L +
+      lineCount * 8L +
+      nodeCount * (long) CompactTree.STRIDE * 4 +
+      textCount * 8L;
+    if (
+      sourceSize < 0 ||
+      tokenCount < 1 ||
+      lineCount < 1 ||
+      nodeCount < 1 ||
+      textCount < 0 ||
+      minimum > size
+    ) {
+      throw new IOException("Serialized parse is corrupt");
+    }
+
+    // Token text entries, each an index, a length and the padded UTF-8 bytes
+    long offset = minimum - textCount * 8L;
+    for (int i = 0; i < textCount; i++) {
+      if (offset + 8 > size) {
+        throw new IOException("Serialized parse is corrupt");
+      }
+      int index = in.getInt((int) offset);
+      int length = in.getInt((int) offset + 4);
+      offset += 8;
+      if (
+        index < 0 ||
+        index >= tokenCount ||
+        length < 0 ||
+        offset + align((long) length) > size
+      ) {
+        throw new IOException("Serialized parse is corrupt");
+      }
+      offset += align((long) length);
+    }
+    return new SerializedParse(
+      in,
+      sourceSize,
+      tokenCount,
+      lineCount,
+      nodeCount,
+      textCount
+    );
+  }
+
+  /**
+   * Reads a serialized parse from a file, which is memory mapped. The mapping
+   * is released when the result is no longer referenced.
+   */
+  public static SerializedParse read(Path file) throws IOException {
+    try (
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)
+    ) {
+      return read(
+        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+      );
+    }
+  }
+
+  /** Number of characters in the source that was parsed. */
+  public int getSourceSize() {
+    return sourceSize;
+  }
+
+  public int getTokenCount() {
+    return tokenCount;
+  }
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Restores the token stream. Token text is read from the given input, which
+   * must be the source the tokens were created from.
+   *
+   * @throws IllegalArgumentException if the input is not the same size as
+   * the source
+   */
+  public CompactTokenStream getTokenStream(CharStream input) {
+    if (input.size() != sourceSize) {
+      throw new IllegalArgumentException(
+        "Input has " +
+        input.size() +
+        " characters, expected " +
+        sourceSize
+      );
+    }
+
+    ByteBuffer in = at(HEADER_BYTES);
+    short[] types = new short[tokenCount];
+    in.asShortBuffer().get(types);
+    skip(in, align(tokenCount * 2));
+    byte[] channels = new byte[tokenCount];
+    in.get(channels);
+    skip(in, align(tokenCount) - tokenCount);
+    int[] starts = getInts(in, tokenCount);
+    int[] stops = getInts(in, tokenCount);
+    int[] lineNumbers = getInts(in, lineCount);
+    int[] lineOffsets = getInts(in, lineCount);
+    skip(in, nodeCount * CompactTree.STRIDE * 4);
+
+    Map<Integer, String> texts = new HashMap<>();
+    for (int i = 0; i < textCount; i++) {
+      int index = in.getInt();
+      byte[] bytes = new byte[in.getInt()];
+      in.get(bytes);
+      skip(in, align(bytes.length) - bytes.length);
+      texts.put(index, new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    return new CompactTokenStream(
+      new ApexLexer(input),
+      types,
+      channels,
+      starts,
+      stops,
+      lineNumbers,
+      lineOffsets,
+      texts
+    );
+  }
+
+  /** Restores the tree. */
+  public CompactTree getTree() {
+    ByteBuffer in = at(
+      HEADER_BYTES +
+      align(tokenCount * 2) +
+      align(tokenCount) +
+      tokenCount * 8 +
+      lineCount * 8
+    );
+    return new CompactTree(getInts(in, nodeCount * CompactTree.STRIDE));
+  }
+
+  // A view positioned at offset, so reads are safe from any thread
+  private ByteBuffer at(int offset) {
+    ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    view.position(offset);
+    return view;
+  }
+
+  private static int[] getInts(ByteBuffer in, int count) {
+    int[] values = new int[count];
+    in.asIntBuffer().get(values);
+    skip(in, count * 4);
+    return values;
+  }
+
+  private static void putInts(ByteBuffer out, int[] values, int count) {
+    out.asIntBuffer().put(values, 0, count);
+    skip(out, count * 4);
+  }
+
+  private static void skip(ByteBuffer buffer, int bytes) {
+    buffer.position(buffer.position() + bytes);
+  }
+
+  private static void pad(ByteBuffer buffer) {
+    while ((buffer.position() & 3) != 0) buffer.put((byte) 0);
+  }
+
+  private static int align(int bytes) {
+    return (bytes + 3) & ~3;
+  }
+
+  private static long align(long bytes) {
+    return (bytes + 3) & ~3L;
+  }
+
+  private static byte[] grammarFingerprint() {
+    byte[] bytes = fingerprint;
+    if (bytes == null) {
+      bytes =
+        CheckCache.grammarFingerprint().getBytes(StandardCharsets.US_ASCII);
+      fingerprint = bytes;
+    }
+    return bytes;
+  }
+}
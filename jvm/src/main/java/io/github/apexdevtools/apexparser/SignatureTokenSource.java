@@ -0,0 +1,220 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.WritableToken;
+import org.antlr.v4.runtime.misc.IntegerStack;
+
+/**
+ * A token source that moves the contents of code bodies to
+ * {@link #BODY_CHANNEL}, so a parser sees every method, constructor, getter,
+ * setter and initializer body as an empty {@code block}. This makes parsing
+ * for signatures much cheaper, the braces are kept so the tree still has a
+ * {@code block} for each body, spanning the original tokens.
+ *
+ * <p>Bodies are found by brace matching with a heuristic for what each opening
+ * brace starts: a type body after {@code class}, {@code interface},
+ * {@code enum} or {@code trigger}; an expression after {@code =} or within
+ * parentheses; a property after an identifier; otherwise a code body. Inside
+ * a property, braces after {@code get} or {@code set} open a body.
+ *
+ * @see ApexParserFactory#parseBody(ApexParser, ApexParser.BlockContext)
+ */
+public class SignatureTokenSource implements TokenSource {
+
+  /** Channel for tokens within skipped bodies. */
+  public static final int BODY_CHANNEL = 4;
+
+  private static final int TYPE = 0;
+  private static final int PROPERTY = 1;
+  private static final int NESTED = 2;
+
+  private final TokenSource source;
+  private final IntegerStack scopes = new IntegerStack();
+  private int bodyDepth = 0;
+  private int previousType = Token.INVALID_TYPE;
+
+  // State since the last member boundary
+  private int parenDepth = 0;
+  private boolean sawType = false;
+  private boolean sawAssign = false;
+
+  public SignatureTokenSource(TokenSource source) {
+    this.source = source;
+  }
+
+  @Override
+  public Token nextToken() {
+    Token token = source.nextToken();
+    if (token.getChannel() != Token.DEFAULT_CHANNEL) return token;
+
+    int type = token.getType();
+    if (bodyDepth > 0) {
+      if (type == ApexLexer.LBRACE) {
+        bodyDepth++;
+      } else if (type == ApexLexer.RBRACE && --bodyDepth == 0) {
+        if (isMemberLevel()) resetMember();
+        previousType = type;
+        return token;
+      }
+
+      // leave an unexpected EOF visible, so the parser reports it
+      if (type != Token.EOF) {
+        ((WritableToken) token).setChannel(BODY_CHANNEL);
+      }
+      return token;
+    }
+
+    if (isMemberLevel()) {
+      memberToken(type);
+    } else if (type == ApexLexer.LBRACE) {
+      if (
+        scopes.peek() == PROPERTY &&
+        (previousType == ApexLexer.GET || previousType == ApexLexer.SET)
+      ) {
+        bodyDepth = 1;
+      } else {
+        scopes.push(NESTED);
+      }
+    } else if (type == ApexLexer.RBRACE) {
+      closeScope();
+    }
+
+    previousType = type;
+    return token;
+  }
+
+  private void memberToken(int type) {
+    switch (type) {
+      case ApexLexer.LPAREN:
+        parenDepth++;
+        break;
+      case ApexLexer.RPAREN:
+        if (parenDepth > 0) parenDepth--;
+        break;
+      case ApexLexer.SEMI:
+        if (parenDepth == 0) resetMember();
+        break;
+      case ApexLexer.ASSIGN:
+        if (parenDepth == 0) sawAssign = true;
+        break;
+      case ApexLexer.CLASS:
+      case ApexLexer.INTERFACE:
+      case ApexLexer.ENUM:
+      case ApexLexer.TRIGGER:
+        if (parenDepth == 0) sawType = true;
+        break;
+      case ApexLexer.LBRACE:
+        if (parenDepth > 0 || sawAssign) {
+          scopes.push(NESTED);
+        } else if (sawType) {
+          scopes.push(TYPE);
+          resetMember();
+        } else if (opensBody(previousType)) {
+          bodyDepth = 1;
+        } else {
+          scopes.push(PROPERTY);
+        }
+        break;
+      case ApexLexer.RBRACE:
+        closeScope();
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static boolean opensBody(int previousType) {
+    switch (previousType) {
+      case Token.INVALID_TYPE:
+      case ApexLexer.RPAREN:
+      case ApexLexer.LBRACE:
+      case ApexLexer.RBRACE:
+      case ApexLexer.SEMI:
+      case ApexLexer.STATIC:
+      case ApexLexer.ELSE:
+      case ApexLexer.DO:
+      case ApexLexer.TRY:
+      case ApexLexer.FINALLY:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private boolean isMemberLevel() {
+    return scopes.size() == 0 || scopes.peek() == TYPE;
+  }
+
+  private void closeScope() {
+    if (scopes.size() == 0) return;
+
+    // expression braces do not end the member they are part of
+    if (scopes.pop() != NESTED && isMemberLevel()) resetMember();
+  }
+
+  private void resetMember() {
+    parenDepth = 0;
+    sawType = false;
+    sawAssign = false;
+  }
+
+  @Override
+  public int getLine() {
+    return source.getLine();
+  }
+
+  @Override
+  public int getCharPositionInLine() {
+    return source.getCharPositionInLine();
+  }
+
+  @Override
+  public CharStream getInputStream() {
+    return source.getInputStream();
+  }
+
+  @Override
+  public String getSourceName() {
+    return source.getSourceName();
+  }
+
+  @Override
+  public void setTokenFactory(TokenFactory<?> factory) {
+    source.setTokenFactory(factory);
+  }
+
+  @Override
+  public TokenFactory<?> getTokenFactory() {
+    return source.getTokenFactory();
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ [The "BSD licence"]
+ Copyright (c) 2026 Kevin Jones, Certinia Inc.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+
+ THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package io.github.apexdevtools.apexparser;
+
+import io.github.apexdevtools.apexparser.ApexParserFactory.Trivia;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * An {@link ApexLexer} that skips whitespace and comment tokens rather than
+ * emitting them on hidden channels. Trivia is still matched, so line and
+ * column positions of later tokens are unchanged, but no token objects are
+ * created for it.
+ */
+final class TriviaLexer extends ApexLexer {
+
+  private final Trivia trivia;
+
+  TriviaLexer(CharStream input, Trivia trivia) {
+    super(input);
+    this.trivia = trivia;
+  }
+
+  // Called by the channel lexer commands on the whitespace and comment rules
+  @Override
+  public void setChannel(int channel) {
+    if (
+      channel == WHITESPACE_CHANNEL ||
+      (channel == COMMENT_CHANNEL &&
+        (trivia == Trivia.NONE || !isDocComment()))
+    ) {
+      skip();
+    } else {
+      super.setChannel(channel);
+    }
+  }
+
+  // A doc comment starts with '/**' and is at least '/***/', as '/**/' is a
+  // block comment
+  private boolean isDocComment() {
+    int start = _tokenStartCharIndex;
+    return (
+      _input.index() - start >= 5 &&
+      _input.getText(Interval.of(start, start + 2)).equals("/**")
+    );
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.github.apexdevtools.apexparser.ApexParserFactoryTest.ErrorCollector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+public class ApexBatchParserTest {
+
+  private static final List<String> SCRIPTS = Arrays.asList(
+    "System.debug('');",
+    "System.debug(;",
+    "List<Account> a = [SELECT Id FROM Account WHERE Name = :n];",
+    "Integer x = ;",
+    "",
+    "for (Integer i = 0; i < 10; i++) { x += i; }",
+    "String s = '\\q';",
+    "if (a) {\n  b();\n} else {\n  c(;\n}"
+  );
+
+  private static List<String> expected() {
+    List<String> results = new ArrayList<>();
+    for (String script : SCRIPTS) {
+      ErrorCollector errors = new ErrorCollector();
+      ApexParser parser = ApexParserFactory.createLexerAndParser(
+        CharStreams.fromString(script),
+        errors
+      ).getParser();
+      String tree = ApexParserFactory.parse(
+        parser,
+        ApexParser::anonymousUnit
+      ).toStringTree(parser);
+      results.add(tree + " " + errors.errors);
+    }
+    return results;
+  }
+
+  private static List<String> actual(
+    List<ParseResult<ApexParser.AnonymousUnitContext>> results
+  ) {
+    List<String> actual = new ArrayList<>();
+    for (ParseResult<ApexParser.AnonymousUnitContext> result : results) {
+      actual.add(
+        result.getTree().toStringTree(Arrays.asList(ApexParser.ruleNames)) +
+          " " +
+          result.getErrors()
+      );
+    }
+    return actual;
+  }
+
+  @Test
+  void testSerial() throws InterruptedException {
+    try (ApexBatchParser batch = ApexBatchParser.create(1)) {
+      assertEquals(
+        expected(),
+        actual(batch.parse(SCRIPTS, ApexParser::anonymousUnit))
+      );
+    }
+  }
+
+  @Test
+  void testParallelInOrder() throws InterruptedException {
+    List<String> sources = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    List<String> once = expected();
+    for (int i = 0; i < 50; i++) {
+      sources.addAll(SCRIPTS);
+      expected.addAll(once);
+    }
+
+    try (ApexBatchParser batch = ApexBatchParser.create(4)) {
+      assertEquals(4, batch.getParallelism());
+      for (int i = 0; i < 2; i++) {
+        assertEquals(
+          expected,
+          actual(batch.parse(sources, ApexParser::anonymousUnit))
+        );
+      }
+    }
+  }
+
+  @Test
+  void testConcatenatedBuffer() throws InterruptedException {
+    StringBuilder buffer = new StringBuilder();
+    int[] offsets = new int[SCRIPTS.size()];
+    for (int i = 0; i < offsets.length; i++) {
+      offsets[i] = buffer.length();
+      buffer.append(SCRIPTS.get(i));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (ApexBatchParser batch = new ApexBatchParser(executor, 2)) {
+      assertEquals(
+        expected(),
+        actual(batch.parse(buffer, offsets, ApexParser::anonymousUnit))
+      );
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testInvalidOffsets() {
+    try (ApexBatchParser batch = ApexBatchParser.create(1)) {
+      assertThrows(
+        IllegalArgumentException.class,
+        () -> batch.parse("abc", new int[] { 2, 1 }, ApexParser::anonymousUnit)
+      );
+      assertThrows(
+        IllegalArgumentException.class,
+        () -> batch.parse("abc", new int[] { 4 }, ApexParser::anonymousUnit)
+      );
+    }
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> new ApexBatchParser(null, 0)
+    );
+  }
+}
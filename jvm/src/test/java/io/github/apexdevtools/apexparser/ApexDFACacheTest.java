@@ -0,0 +1,84 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class ApexDFACacheTest {
+
+  private static final String SOURCE =
+    "public class Hello { void m() { Integer x = (a + 1) * b; } }";
+
+  private static ApexParser parse() {
+    ApexParser parser = ApexParserFactory.createParser(
+      CharStreams.fromString(SOURCE)
+    );
+    parser.compilationUnit();
+    return parser;
+  }
+
+  @AfterEach
+  void resetHighWaterMark() {
+    ApexDFACache.setHighWaterMark(0);
+  }
+
+  @Test
+  void testStatistics() {
+    parse();
+    assertTrue(ApexDFACache.getStateCount() > 0);
+    assertTrue(ApexDFACache.getApproximateSize() > 0);
+  }
+
+  @Test
+  void testClearStartsGeneration() {
+    ApexParser before = parse();
+    int generation = ApexDFACache.getGeneration();
+
+    ApexDFACache.clear();
+    assertEquals(generation + 1, ApexDFACache.getGeneration());
+    assertEquals(0, ApexDFACache.getStateCount());
+
+    ApexParser after = parse();
+    assertNotSame(
+      before.getInterpreter().decisionToDFA,
+      after.getInterpreter().decisionToDFA
+    );
+    assertTrue(ApexDFACache.getStateCount() > 0);
+
+    // later parsers share the new generation
+    assertSame(
+      after.getInterpreter().decisionToDFA,
+      parse().getInterpreter().decisionToDFA
+    );
+  }
+
+  @Test
+  void testHighWaterMark() {
+    parse();
+    assertFalse(ApexDFACache.checkHighWaterMark());
+
+    int generation = ApexDFACache.getGeneration();
+    ApexDFACache.setHighWaterMark(1);
+    assertTrue(ApexDFACache.checkHighWaterMark());
+    assertEquals(generation + 1, ApexDFACache.getGeneration());
+  }
+}
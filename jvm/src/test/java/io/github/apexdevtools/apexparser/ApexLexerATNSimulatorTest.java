@@ -0,0 +1,139 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+
+public class ApexLexerATNSimulatorTest {
+
+  private static final String[] WORDS = new String[] {
+    "System.runAs(u)",
+    "system . runas",
+    "System.debug(x)",
+    "usd100 USD100 Usd1x usd 1usd100 us100 usdd100",
+    "true FALSE null NULLS nullliteral",
+    "last_90_days LAST_N_DAYS:5 next_90_day",
+    "_ $ $x _1 a$b x_",
+    "café naïve claſs Kelvin Kelvin ÿx Ÿx",
+    "x😀y 😀 a b",
+    "[find 'x'] [FIND {y}] find",
+    "abc\n  def\r\n\tghi",
+  };
+
+  @Test
+  void testKeywordsMatchGeneratedLexer() {
+    StringBuilder source = new StringBuilder();
+    for (String keyword : ApexLexerATNSimulator.keywords().keySet()) {
+      String upper = keyword.toUpperCase(Locale.ROOT);
+      String mixed = Character.toUpperCase(keyword.charAt(0)) +
+        keyword.substring(1);
+      source.append(keyword).append(' ').append(upper).append(' ');
+      source.append(mixed).append(' ').append(keyword).append("x ");
+      source.append('x').append(keyword).append(' ');
+      source.append(keyword).append("1 ").append(keyword).append("$\n");
+      source.append(keyword.substring(0, keyword.length() - 1)).append('(');
+    }
+    assertSameTokens(CharStreams.fromString(source.toString()));
+  }
+
+  @Test
+  void testEdgeCasesMatchGeneratedLexer() {
+    for (String source : WORDS) {
+      assertSameTokens(CharStreams.fromString(source));
+    }
+  }
+
+  @Test
+  void testCorpusMatchesGeneratedLexer() throws IOException {
+    for (String name : new String[] {
+      "warmup/Warmup.cls",
+      "warmup/Warmup.trigger",
+      "warmup/Warmup.apex",
+    }) {
+      try (InputStream in = ApexParserFactory.class.getResourceAsStream(name)) {
+        assertSameTokens(CharStreams.fromStream(in));
+      }
+    }
+  }
+
+  @Test
+  void testLongerTokensLeftToATN() {
+    // 'system' is a keyword and starts 'system.runas'
+    assertEquals(
+      Token.INVALID_TYPE,
+      (int) ApexLexerATNSimulator.keywords().get("system")
+    );
+    List<Token> tokens = lex(
+      ApexParserFactory.createLexer(CharStreams.fromString("System.runAs"))
+    );
+    assertEquals(ApexLexer.SYSTEMRUNAS, tokens.get(0).getType());
+  }
+
+  private static void assertSameTokens(CharStream stream) {
+    ApexLexer generated = new ApexLexer(stream);
+    generated.removeErrorListeners();
+    List<Token> expected = lex(generated);
+
+    stream.seek(0);
+    ApexLexer lexer = ApexParserFactory.createLexer(stream);
+    assertTrue(lexer.getInterpreter() instanceof ApexLexerATNSimulator);
+    List<Token> actual = lex(lexer);
+
+    assertEquals(describe(expected), describe(actual));
+  }
+
+  private static List<Token> lex(Lexer lexer) {
+    List<Token> tokens = new ArrayList<>();
+    Token token;
+    do {
+      token = lexer.nextToken();
+      tokens.add(token);
+    } while (token.getType() != Token.EOF);
+    return tokens;
+  }
+
+  private static List<String> describe(List<Token> tokens) {
+    List<String> described = new ArrayList<>();
+    for (Token token : tokens) {
+      described.add(
+        ApexLexer.VOCABULARY.getSymbolicName(token.getType()) +
+          ":" +
+          token.getLine() +
+          ":" +
+          token.getCharPositionInLine() +
+          ":" +
+          token.getStartIndex() +
+          ":" +
+          token.getStopIndex() +
+          ":" +
+          token.getChannel() +
+          ":" +
+          token.getText()
+      );
+    }
+    return described;
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.github.apexdevtools.apexparser.ApexOutlineScanner.Declaration;
+import io.github.apexdevtools.apexparser.ApexParserFactoryTest.ErrorCollector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+public class ApexOutlineScannerTest {
+
+  static class Outline implements ApexOutlineScanner.Listener {
+
+    final List<String> events = new ArrayList<>();
+    final List<Declaration> declarations = new ArrayList<>();
+
+    @Override
+    public void declaration(Declaration declaration) {
+      declarations.add(declaration);
+      StringBuilder event = new StringBuilder();
+      for (Declaration p = declaration.getParent(); p != null; ) {
+        event.append("  ");
+        p = p.getParent();
+      }
+      event.append(declaration.getKind()).append(' ');
+      event.append(String.join(" ", declaration.getAnnotations()));
+      if (!declaration.getAnnotations().isEmpty()) event.append(' ');
+      event.append(String.join(" ", declaration.getModifiers()));
+      if (!declaration.getModifiers().isEmpty()) event.append(' ');
+      if (declaration.getType() != null) {
+        event.append(declaration.getType()).append(' ');
+      }
+      event.append(declaration.getName());
+      if (!declaration.getParameters().isEmpty()) {
+        event
+          .append('(')
+          .append(String.join(", ", declaration.getParameters()))
+          .append(')');
+      }
+      if (!declaration.getExtends().isEmpty()) {
+        event.append(" extends ");
+        event.append(String.join(", ", declaration.getExtends()));
+      }
+      if (!declaration.getImplements().isEmpty()) {
+        event.append(" implements ");
+        event.append(String.join(", ", declaration.getImplements()));
+      }
+      events.add(event.toString());
+    }
+
+    @Override
+    public void endType(Declaration type) {
+      events.add("end " + type.getName());
+    }
+  }
+
+  @Test
+  void testClass() {
+    Outline outline = new Outline();
+    ErrorCollector errors = new ErrorCollector();
+    ApexOutlineScanner.scanCompilationUnit(
+      CharStreams.fromString(
+        String.join(
+          "\n",
+          "@IsTest(SeeAllData = true)",
+          "public with  sharing class Foo extends Bar implements I1, Map<String, Integer> {",
+          "  private static final Integer a = 1, b;",
+          "  public String name { get { return 'x'; } set; }",
+          "  public Foo(Integer x) { this.x = x; }",
+          "  @Future global static void run(final List<Id> ids, String s) {",
+          "    Integer local = 0;",
+          "  }",
+          "  Map<String, List<Account>> find() { return null; }",
+          "  enum E { A, B }",
+          "  enum Empty {}",
+          "  interface I extends J, K { void m(Integer i); String n(); }",
+          "  static { init(); }",
+          "}"
+        )
+      ),
+      outline,
+      errors
+    );
+
+    assertEquals(new ArrayList<String>(), errors.errors);
+    assertEquals(
+      Arrays.asList(
+        "CLASS @IsTest(SeeAllData = true) public with sharing Foo extends Bar implements I1, Map<String, Integer>",
+        "  FIELD private static final Integer a",
+        "  FIELD private static final Integer b",
+        "  PROPERTY public String name",
+        "  CONSTRUCTOR public Foo(Integer x)",
+        "  METHOD @Future global static void run(List<Id> ids, String s)",
+        "  METHOD Map<String, List<Account>> find",
+        "  ENUM E",
+        "    ENUM_CONSTANT A",
+        "    ENUM_CONSTANT B",
+        "end E",
+        "  ENUM Empty",
+        "end Empty",
+        "  INTERFACE I extends J, K",
+        "    METHOD void m(Integer i)",
+        "    METHOD String n",
+        "end I",
+        "end Foo"
+      ),
+      outline.events
+    );
+
+    Declaration run = outline.declarations.get(5);
+    assertEquals(6, run.getLine());
+    assertEquals(29, run.getColumn());
+    assertEquals("Foo", run.getParent().getName());
+  }
+
+  @Test
+  void testTrigger() {
+    Outline outline = new Outline();
+    ApexOutlineScanner.scanTriggerUnit(
+      CharStreams.fromString(
+        "trigger T on Account (before insert) { void m() {} m(); }"
+      ),
+      outline,
+      new ErrorCollector()
+    );
+    assertEquals(
+      Arrays.asList("TRIGGER Account T", "  METHOD void m", "end T"),
+      outline.events
+    );
+  }
+
+  @Test
+  void testAnonymous() {
+    // top level variables parse as field declarations
+    Outline outline = new Outline();
+    ApexOutlineScanner.scanAnonymousUnit(
+      CharStreams.fromString("Integer i = 0; class C { Integer j; } i++;"),
+      outline,
+      new ErrorCollector()
+    );
+    assertEquals(
+      Arrays.asList(
+        "FIELD Integer i",
+        "CLASS C",
+        "  FIELD Integer j",
+        "end C"
+      ),
+      outline.events
+    );
+  }
+
+  @Test
+  void testErrorsReportedOnce() {
+    // the first stage bails at the error, members before it are not repeated
+    Outline outline = new Outline();
+    ErrorCollector errors = new ErrorCollector();
+    ApexOutlineScanner.scanCompilationUnit(
+      CharStreams.fromString(
+        "class C { Integer a; void m() {} Integer = ; void n() {} }"
+      ),
+      outline,
+      errors
+    );
+    assertEquals(1, errors.errors.size(), errors.errors.toString());
+    assertEquals(
+      Arrays.asList(
+        "CLASS C",
+        "  FIELD Integer a",
+        "  METHOD void m",
+        "  METHOD void n",
+        "end C"
+      ),
+      outline.events
+    );
+  }
+
+  @Test
+  void testFullParser() {
+    // bodies are not skipped with a caller's parser, events are the same
+    String source =
+      "public class C { void m() { Integer x = void.class == null ? 1 : 2; } }";
+    Outline expected = new Outline();
+    ApexOutlineScanner.scanCompilationUnit(
+      CharStreams.fromString(source),
+      expected,
+      new ErrorCollector()
+    );
+
+    Outline actual = new Outline();
+    ApexParser parser = ApexParserFactory.createParser(
+      CharStreams.fromString(source)
+    );
+    ApexOutlineScanner.scan(parser, ApexParser::compilationUnit, actual);
+    assertEquals(expected.events, actual.events);
+    assertEquals("void", actual.declarations.get(1).getType());
+    assertNull(actual.declarations.get(0).getType());
+  }
+}
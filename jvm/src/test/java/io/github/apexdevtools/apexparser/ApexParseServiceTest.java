@@ -0,0 +1,259 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.apexdevtools.apexparser.ApexParseService.CancellableTokenStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.junit.jupiter.api.Test;
+
+public class ApexParseServiceTest {
+
+  // Holds tasks until they are run by the test
+  static class DeferredExecutor extends AbstractExecutorService {
+
+    final List<Runnable> tasks = new ArrayList<>();
+
+    void runNext() {
+      tasks.remove(0).run();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+    }
+
+    @Override
+    public void shutdown() {}
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return false;
+    }
+  }
+
+  @Test
+  void testSubmit() throws Exception {
+    try (ApexParseService service = ApexParseService.create(4)) {
+      List<
+        CompletableFuture<ParseResult<ApexParser.CompilationUnitContext>>
+      > results = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        String source = i % 2 == 0
+          ? "public class C" + i + " {}"
+          : "public class C" + i + " { Integer x = ; }";
+        results.add(service.submit(source, ApexParser::compilationUnit));
+      }
+
+      for (int i = 0; i < 20; i++) {
+        ParseResult<ApexParser.CompilationUnitContext> result = results
+          .get(i)
+          .get(10, TimeUnit.SECONDS);
+        assertEquals(
+          "C" + i,
+          result.getTree().typeDeclaration().classDeclaration().id().getText()
+        );
+        assertEquals(i % 2 == 1, result.hasErrors());
+      }
+      assertEquals(1, results.get(1).get().getErrors().get(0).getLine());
+    }
+  }
+
+  @Test
+  void testTrySubmitLimit() {
+    DeferredExecutor executor = new DeferredExecutor();
+    ApexParseService service = new ApexParseService(executor, 2);
+    CompletableFuture<?> first = service.trySubmit(
+      CharStreams.fromString("class A {}"),
+      ApexParser::compilationUnit
+    );
+    service.trySubmit(
+      CharStreams.fromString("class B {}"),
+      ApexParser::compilationUnit
+    );
+    CompletableFuture<?> rejected = service.trySubmit(
+      CharStreams.fromString("class C {}"),
+      ApexParser::compilationUnit
+    );
+    assertEquals(2, service.getPending());
+    ExecutionException ex = assertThrows(
+      ExecutionException.class,
+      rejected::get
+    );
+    assertTrue(ex.getCause() instanceof RejectedExecutionException);
+
+    executor.runNext();
+    assertTrue(first.isDone() && !first.isCompletedExceptionally());
+    assertEquals(1, service.getPending());
+    CompletableFuture<?> next = service.trySubmit(
+      CharStreams.fromString("class D {}"),
+      ApexParser::compilationUnit
+    );
+    assertFalse(next.isDone());
+  }
+
+  @Test
+  void testCancelBeforeStart() throws InterruptedException {
+    DeferredExecutor executor = new DeferredExecutor();
+    ApexParseService service = new ApexParseService(executor, 1);
+    CompletableFuture<?> result = service.submit(
+      "class A {}",
+      ApexParser::compilationUnit
+    );
+    result.cancel(true);
+    executor.runNext();
+    assertTrue(result.isCancelled());
+    assertEquals(0, service.getPending());
+  }
+
+  @Test
+  void testCancelQueuedReleasesPlaces() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    CountDownLatch blocked = new CountDownLatch(1);
+    try {
+      executor.execute(() -> {
+        try {
+          blocked.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      ApexParseService service = new ApexParseService(executor, 2);
+      List<CompletableFuture<?>> queued = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        queued.add(service.submit("class A {}", ApexParser::compilationUnit));
+      }
+      assertEquals(2, service.getPending());
+
+      queued.get(0).cancel(true);
+      assertEquals(1, service.getPending());
+      queued.get(1).cancel(true);
+      assertEquals(0, service.getPending());
+      assertFalse(
+        service
+          .trySubmit(
+            CharStreams.fromString("class B {}"),
+            ApexParser::compilationUnit
+          )
+          .isCompletedExceptionally()
+      );
+    } finally {
+      blocked.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testShutdownExecutorRejects() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdownNow();
+    ApexParseService service = new ApexParseService(executor, 1);
+    CompletableFuture<?> result = service.trySubmit(
+      CharStreams.fromString("class A {}"),
+      ApexParser::compilationUnit
+    );
+    ExecutionException ex = assertThrows(ExecutionException.class, result::get);
+    assertTrue(ex.getCause() instanceof RejectedExecutionException);
+    assertEquals(0, service.getPending());
+  }
+
+  @Test
+  void testCancelStopsParse() {
+    StringBuilder source = new StringBuilder("public class C {\n");
+    for (int i = 0; i < 1000; i++) {
+      source.append("  void m").append(i).append("() { x = ").append(i);
+      source.append("; }\n");
+    }
+    source.append("}");
+    CommonTokenStream all = ApexParserFactory.createTokenStream(
+      CharStreams.fromString(source.toString())
+    );
+    all.fill();
+
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    CancellableTokenStream tokens = new CancellableTokenStream(
+      ApexParserFactory.createLexer(CharStreams.fromString(source.toString())),
+      future
+    );
+    ApexParser parser = ApexParserFactory.createParser(tokens);
+
+    // cancel as the tenth method is parsed
+    parser.addParseListener(
+      new ParseTreeListener() {
+        int methods = 0;
+
+        @Override
+        public void enterEveryRule(ParserRuleContext ctx) {
+          if (
+            ctx.getRuleIndex() == ApexParser.RULE_methodDeclaration &&
+            ++methods == 10
+          ) {
+            future.cancel(true);
+          }
+        }
+
+        @Override
+        public void exitEveryRule(ParserRuleContext ctx) {}
+
+        @Override
+        public void visitTerminal(TerminalNode node) {}
+
+        @Override
+        public void visitErrorNode(ErrorNode node) {}
+      }
+    );
+
+    assertThrows(
+      CancellationException.class,
+      () -> ApexParserFactory.parse(parser, ApexParser::compilationUnit)
+    );
+    // tokens are read lazily, so few have been lexed
+    assertTrue(tokens.size() < all.size() / 10);
+  }
+}
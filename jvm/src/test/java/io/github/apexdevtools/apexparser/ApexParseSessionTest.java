@@ -0,0 +1,143 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.github.apexdevtools.apexparser.ApexParserFactoryTest.ErrorCollector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+public class ApexParseSessionTest {
+
+  private static final String[] SCRIPTS = new String[] {
+    "System.debug('');",
+    "System.debug(;",
+    "List<Account> a = [SELECT Id FROM Account WHERE Name = :n];",
+    "Integer x = ;",
+    "for (Integer i = 0; i < 10; i++) { x += i; }",
+    "String s = '\\q';",
+    "if (a) { b(); } else { c(); }",
+  };
+
+  private static String expected(String source, List<String> errors) {
+    ErrorCollector collector = new ErrorCollector();
+    ApexParserFactory.LexerAndParser pair =
+      ApexParserFactory.createLexerAndParser(
+        CharStreams.fromString(source),
+        collector
+      );
+    ApexParser parser = pair.getParser();
+    String tree = ApexParserFactory.parse(
+      parser,
+      ApexParser::anonymousUnit
+    ).toStringTree(parser);
+    errors.addAll(collector.errors);
+    return tree;
+  }
+
+  private static String actual(
+    ApexParseSession session,
+    String source,
+    List<String> errors
+  ) {
+    ErrorCollector collector = new ErrorCollector();
+    String tree = session
+      .parseAnonymousUnit(CharStreams.fromString(source), collector)
+      .toStringTree(Arrays.asList(ApexParser.ruleNames));
+    errors.addAll(collector.errors);
+    return tree;
+  }
+
+  @Test
+  void testReuseMatchesNewParser() {
+    ApexParseSession session = new ApexParseSession();
+    for (int i = 0; i < 3; i++) {
+      for (String script : SCRIPTS) {
+        List<String> expectedErrors = new ArrayList<>();
+        List<String> actualErrors = new ArrayList<>();
+        assertEquals(
+          expected(script, expectedErrors),
+          actual(session, script, actualErrors),
+          script
+        );
+        assertEquals(expectedErrors, actualErrors, script);
+      }
+    }
+  }
+
+  @Test
+  void testSessionPerThread() throws Exception {
+    List<String> expected = new ArrayList<>();
+    for (String script : SCRIPTS) {
+      List<String> errors = new ArrayList<>();
+      expected.add(expected(script, errors) + errors);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        String script = SCRIPTS[i % SCRIPTS.length];
+        results.add(
+          executor.submit(() -> {
+            List<String> errors = new ArrayList<>();
+            return actual(ApexParseSession.get(), script, errors) + errors;
+          })
+        );
+      }
+      for (int i = 0; i < results.size(); i++) {
+        assertEquals(expected.get(i % SCRIPTS.length), results.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testNestedParseUsesNewSession() {
+    ApexParseSession session = ApexParseSession.get();
+    assertSame(session, ApexParseSession.get());
+
+    List<String> nested = new ArrayList<>();
+    List<String> outer = new ArrayList<>();
+    session.parseAnonymousUnit(
+      CharStreams.fromString("Integer x = ;"),
+      new ApexErrorListener() {
+        @Override
+        public void apexSyntaxError(int line, int column, String msg) {
+          ApexParseSession inner = ApexParseSession.get();
+          assertNotSame(session, inner);
+          nested.add(actual(inner, "System.debug(;", new ArrayList<>()));
+          outer.add(msg);
+        }
+      }
+    );
+    assertFalse(outer.isEmpty());
+    assertEquals(outer.size(), nested.size());
+    assertEquals(
+      expected("System.debug(;", new ArrayList<>()),
+      nested.get(0)
+    );
+  }
+}
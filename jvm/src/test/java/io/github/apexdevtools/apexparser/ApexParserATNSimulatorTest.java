@@ -0,0 +1,232 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.apexdevtools.apexparser.ApexParserFactory.LexerAndParser;
+import io.github.apexdevtools.apexparser.ApexParserFactoryTest.ErrorCollector;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.AtomTransition;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.RuleTransition;
+import org.antlr.v4.runtime.atn.SetTransition;
+import org.antlr.v4.runtime.atn.Transition;
+import org.antlr.v4.runtime.misc.IntervalSet;
+import org.junit.jupiter.api.Test;
+
+public class ApexParserATNSimulatorTest {
+
+  private static final String[] CLASSES = new String[] {
+    "public class C { void m(List<Account> a, Map<Id, Set<String>> b) {} }",
+    "public class C { List<List<Integer>> l = new List<List<Integer>>(); }",
+    "public class C { Type t = Map<String, Schema.SObjectType>.class; }",
+    "public class C { void m() { Object o = (List<Account>) x; } }",
+    "public class C { void m() { for (List<Account> a : chunks) {} } }",
+    "public class C { Boolean b = o instanceof List<Account>; }",
+    "public class C { Boolean b = o instanceof Foo < y; }",
+    "public class C { Boolean b = o instanceof Foo << y > z; }",
+    "public class C { void m() { switch on o { when List<Account> a {} } } }",
+    "public class C { void m() { List<5> x; } }",
+    "public class C { void m() { List<Account x; } }",
+    "public class C { void m() { Integer select = after.last + first; } }",
+    "public class C { Map<String, Id> data; void m() { sharing.get(data); } }",
+    "public class C { void m() { insert = merge; update.upsert(delete); } }",
+  };
+
+  @Test
+  void testSetTransitionsMatchSets() {
+    ApexParser parser = ApexParserFactory.createLexerAndParser(
+      CharStreams.fromString(""),
+      new ErrorCollector()
+    ).getParser();
+    ApexParserATNSimulator simulator =
+      (ApexParserATNSimulator) parser.getInterpreter();
+    int maxTokenType = ApexParser._ATN.maxTokenType;
+    int sets = 0;
+    for (ATNState state : ApexParser._ATN.states) {
+      if (state == null) continue;
+      for (Transition transition : state.getTransitions()) {
+        if (transition.getClass() == SetTransition.class) sets++;
+        for (int t = Token.EOF; t <= maxTokenType + 64; t++) {
+          assertEquals(
+            transition.matches(t, 0, maxTokenType) ? transition.target : null,
+            simulator.getReachableTarget(transition, t),
+            state + " " + t
+          );
+        }
+      }
+    }
+    assertTrue(sets > 0);
+  }
+
+  @Test
+  void testOnlyInstanceOfOperandsAreFollowedByLT() {
+    // The typeName shortcut relies on this, if it fails after a grammar
+    // change the shortcut must be revisited
+    IntervalSet follow = follow(ApexParser.RULE_typeName, new BitSet());
+    assertFalse(follow.contains(ApexLexer.LT), follow.toString());
+
+    // the instanceof operand is excluded above, but is followed by <
+    assertTrue(
+      follow(ApexParser.RULE_expression, new BitSet()).contains(ApexLexer.LT)
+    );
+  }
+
+  // Tokens that can follow a rule, except for a typeRef after instanceof
+  private static IntervalSet follow(int rule, BitSet visited) {
+    IntervalSet follow = new IntervalSet();
+    if (visited.get(rule)) return follow;
+    visited.set(rule);
+
+    ATN atn = ApexParser._ATN;
+    for (ATNState state : atn.states) {
+      if (state == null) continue;
+      for (Transition transition : state.getTransitions()) {
+        if (
+          transition instanceof RuleTransition &&
+          transition.target == atn.ruleToStartState[rule] &&
+          !isInstanceOfOperand(state, rule)
+        ) {
+          IntervalSet next = atn.nextTokens(
+            ((RuleTransition) transition).followState
+          );
+          if (next.contains(Token.EPSILON)) {
+            next = next.subtract(IntervalSet.of(Token.EPSILON));
+            next.addAll(follow(state.ruleIndex, visited));
+          }
+          follow.addAll(next);
+        }
+      }
+    }
+    return follow;
+  }
+
+  // A call to typeRef reached by matching instanceof
+  private static boolean isInstanceOfOperand(ATNState caller, int rule) {
+    if (
+      rule != ApexParser.RULE_typeRef ||
+      caller.ruleIndex != ApexParser.RULE_expression
+    ) {
+      return false;
+    }
+    for (ATNState state : ApexParser._ATN.states) {
+      if (state == null) continue;
+      for (Transition transition : state.getTransitions()) {
+        if (
+          transition.target == caller &&
+          transition instanceof AtomTransition &&
+          ((AtomTransition) transition).label == ApexLexer.INSTANCEOF
+        ) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Test
+  void testSameAsGeneratedParser() throws IOException {
+    for (String source : CLASSES) {
+      assertSameParse(CharStreams.fromString(source));
+    }
+    try (
+      InputStream in = ApexParserFactory.class.getResourceAsStream(
+        "warmup/Warmup.cls"
+      )
+    ) {
+      assertSameParse(CharStreams.fromStream(in));
+    }
+  }
+
+  @Test
+  void testInstanceOfComparison() {
+    ErrorCollector errors = new ErrorCollector();
+    ApexParserFactory.parseCompilationUnit(
+      CharStreams.fromString(
+        "public class C { Boolean b = o instanceof Foo < y; }"
+      ),
+      errors
+    );
+    assertTrue(errors.errors.isEmpty(), errors.errors.toString());
+  }
+
+  @Test
+  void testProfilingKeepsPredictions() {
+    for (String source : CLASSES) {
+      ApexParser parser = ApexParserFactory.createParser(
+        ApexParserFactory.createTokenStream(CharStreams.fromString(source))
+      );
+      parser.removeErrorListeners();
+      String expectedTree = parser.compilationUnit().toStringTree(parser);
+
+      parser = ApexParserFactory.createParser(
+        ApexParserFactory.createTokenStream(CharStreams.fromString(source))
+      );
+      parser.removeErrorListeners();
+      parser.setInterpreter(new ApexParserATNSimulator.Profiling(parser));
+      assertEquals(
+        expectedTree,
+        parser.compilationUnit().toStringTree(parser),
+        source
+      );
+
+      // instanceof operands are left to normal prediction
+      if (source.contains("instanceof")) continue;
+      for (DecisionInfo info : parser.getParseInfo().getDecisionInfo()) {
+        int rule = ApexParser._ATN.getDecisionState(info.decision).ruleIndex;
+        if (rule == ApexParser.RULE_typeName) {
+          assertTrue(info.SLL_MaxLook <= 1, source);
+        }
+      }
+    }
+  }
+
+  private static void assertSameParse(CharStream stream) {
+    ErrorCollector expected = new ErrorCollector();
+    ApexLexer lexer = new ApexLexer(stream);
+    lexer.removeErrorListeners();
+    ApexParser parser = new ApexParser(new CommonTokenStream(lexer));
+    parser.removeErrorListeners();
+    parser.addErrorListener(expected);
+    String expectedTree = parser.compilationUnit().toStringTree(parser);
+
+    stream.seek(0);
+    ErrorCollector actual = new ErrorCollector();
+    LexerAndParser pair = ApexParserFactory.createLexerAndParser(
+      stream,
+      actual
+    );
+    assertTrue(
+      pair.getParser().getInterpreter() instanceof ApexParserATNSimulator
+    );
+    String actualTree = pair
+      .getParser()
+      .compilationUnit()
+      .toStringTree(pair.getParser());
+
+    assertEquals(expected.errors, actual.errors);
+    assertEquals(expectedTree, actualTree);
+  }
+}
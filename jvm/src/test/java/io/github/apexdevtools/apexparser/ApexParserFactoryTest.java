@@ -0,0 +1,180 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import io.github.apexdevtools.apexparser.ApexParserFactory.LexerAndParser;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.junit.jupiter.api.Test;
+
+public class ApexParserFactoryTest {
+
+  static class ErrorCollector extends ApexErrorListener {
+
+    public final List<String> errors = new ArrayList<>();
+
+    @Override
+    public void apexSyntaxError(int line, int column, String msg) {
+      errors.add(line + ":" + column + " " + msg);
+    }
+  }
+
+  private static final String[] CLASSES = new String[] {
+    "public class Hello {}",
+    "public class Hello {",
+    "public class Hello { void m() { Integer x = ; } }",
+    "public class Hello { void m() { do System.debug(''); while (true); } }",
+    "public class Hello { String s = '\\q'; }",
+    "public class Hello { void m() { Object o = (Integer) -x; o = (a) - b; } }",
+    "public class Hello { List<Account> a = [SELECT Id FROM Account WHERE ]; }",
+    "class { }",
+  };
+
+  @Test
+  void testTwoStageParseReportsSameErrors() {
+    for (String source : CLASSES) {
+      ErrorCollector expected = new ErrorCollector();
+      LexerAndParser pair = ApexParserFactory.createLexerAndParser(
+        CharStreams.fromString(source),
+        expected
+      );
+      String expectedTree = pair
+        .getParser()
+        .compilationUnit()
+        .toStringTree(pair.getParser());
+
+      ErrorCollector actual = new ErrorCollector();
+      pair = ApexParserFactory.createLexerAndParser(
+        CharStreams.fromString(source),
+        actual
+      );
+      String actualTree = ApexParserFactory.parse(
+        pair.getParser(),
+        ApexParser::compilationUnit
+      ).toStringTree(pair.getParser());
+
+      assertEquals(expected.errors, actual.errors, source);
+      assertEquals(expectedTree, actualTree, source);
+    }
+  }
+
+  @Test
+  void testParseHelpers() {
+    ErrorCollector errors = new ErrorCollector();
+    assertNotNull(
+      ApexParserFactory.parseCompilationUnit(
+        CharStreams.fromString("public class Hello {}"),
+        errors
+      )
+    );
+    assertNotNull(
+      ApexParserFactory.parseTriggerUnit(
+        CharStreams.fromString("trigger T on Account (before insert) {}"),
+        errors
+      )
+    );
+    assertNotNull(
+      ApexParserFactory.parseAnonymousUnit(
+        CharStreams.fromString("System.debug('');"),
+        errors
+      )
+    );
+    assertEquals(0, errors.errors.size());
+
+    ApexParserFactory.parseAnonymousUnit(
+      CharStreams.fromString("System.debug(;"),
+      errors
+    );
+    assertEquals(1, errors.errors.size());
+  }
+
+  @Test
+  void testQueryUnits() {
+    ErrorCollector errors = new ErrorCollector();
+    ApexParser.SoqlUnitContext soql = ApexParserFactory.parseSoqlUnit(
+      CharStreams.fromString("SELECT Id FROM Account WHERE Name = :name"),
+      errors
+    );
+    assertEquals("Account", soql.query().fromNameList().getText());
+
+    // Search and expected find literal pairs
+    String[] searches = new String[] {
+      "FIND {Acme* AND \"Big Co\"} IN ALL FIELDS RETURNING Account",
+      "FIND {Acme* AND \"Big Co\"}",
+      "  find 'it\\'s' RETURNING Contact(Name)",
+      "find 'it\\'s'",
+      "FIND\n{a\\}b} LIMIT 5",
+      "FIND\n{a\\}b}",
+    };
+    for (int i = 0; i < searches.length; i += 2) {
+      ApexParser.SoslUnitContext sosl = ApexParserFactory.parseSoslUnit(
+        CharStreams.fromString(searches[i]),
+        errors
+      );
+      assertEquals(searches[i + 1], sosl.getStart().getText());
+    }
+    assertEquals(new ArrayList<String>(), errors.errors);
+
+    ApexParserFactory.parseSoqlUnit(
+      CharStreams.fromString("SELECT Id FROM Account]"),
+      errors
+    );
+    ApexParserFactory.parseSoslUnit(
+      CharStreams.fromString("FIND {unclosed RETURNING Account"),
+      errors
+    );
+    assertEquals(2, errors.errors.size(), errors.errors.toString());
+  }
+
+  @Test
+  void testWarmUpCoversEveryRule() {
+    BitSet entered = new BitSet();
+    List<String> errors = new ArrayList<>();
+    ApexParserFactory.warmUp(
+      new ParseTreeListener() {
+        @Override
+        public void enterEveryRule(ParserRuleContext ctx) {
+          entered.set(ctx.getRuleIndex());
+        }
+
+        @Override
+        public void exitEveryRule(ParserRuleContext ctx) {}
+
+        @Override
+        public void visitTerminal(TerminalNode node) {}
+
+        @Override
+        public void visitErrorNode(ErrorNode node) {
+          errors.add(node.getText());
+        }
+      }
+    );
+
+    assertEquals(new ArrayList<String>(), errors);
+    List<String> missing = new ArrayList<>();
+    for (int i = 0; i < ApexParser.ruleNames.length; i++) {
+      if (!entered.get(i)) missing.add(ApexParser.ruleNames[i]);
+    }
+    assertEquals(new ArrayList<String>(), missing);
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.apexdevtools.apexparser.ApexParserFactory.LexerAndParser;
+import io.github.apexdevtools.apexparser.ApexParserFactoryTest.ErrorCollector;
+import io.github.apexdevtools.apexparser.BoundedErrorStrategy.Limit;
+import java.util.concurrent.TimeUnit;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+public class BoundedErrorStrategyTest {
+
+  private static final String VALID =
+    "public class Hello { void m() { Integer x = 1; } }";
+
+  // Every method is missing a closing parenthesis
+  private static String broken(int methods) {
+    StringBuilder source = new StringBuilder("public class Broken {\n");
+    for (int i = 0; i < methods; i++) {
+      source
+        .append("  public Integer m")
+        .append(i)
+        .append("(Integer a { return a + ")
+        .append(i)
+        .append("; }\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private static LexerAndParser create(String source, ErrorCollector errors) {
+    return ApexParserFactory.createLexerAndParser(
+      CharStreams.fromString(source),
+      errors
+    );
+  }
+
+  @Test
+  void testNoLimits() {
+    ErrorCollector errors = new ErrorCollector();
+    LexerAndParser pair = create(VALID, errors);
+    BoundedErrorStrategy strategy = new BoundedErrorStrategy();
+    ApexParser.CompilationUnitContext tree = strategy.parse(
+      pair.getParser(),
+      ApexParser::compilationUnit
+    );
+    assertFalse(strategy.isTruncated());
+    assertNull(strategy.getLimit());
+    assertEquals(0, errors.errors.size());
+
+    LexerAndParser expected = create(VALID, new ErrorCollector());
+    assertEquals(
+      ApexParserFactory.parse(
+        expected.getParser(),
+        ApexParser::compilationUnit
+      ).toStringTree(expected.getParser()),
+      tree.toStringTree(pair.getParser())
+    );
+  }
+
+  @Test
+  void testMaxErrors() {
+    ErrorCollector errors = new ErrorCollector();
+    LexerAndParser pair = create(broken(50), errors);
+    BoundedErrorStrategy strategy = new BoundedErrorStrategy()
+      .setMaxErrors(5);
+    ApexParser.CompilationUnitContext tree = strategy.parse(
+      pair.getParser(),
+      ApexParser::compilationUnit
+    );
+    assertTrue(strategy.isTruncated());
+    assertEquals(Limit.ERRORS, strategy.getLimit());
+    assertEquals(5, errors.errors.size());
+
+    // partial tree holds the members parsed before stopping
+    assertNotNull(tree);
+    int members = tree
+      .typeDeclaration()
+      .classDeclaration()
+      .classBody()
+      .classBodyDeclaration()
+      .size();
+    assertTrue(members > 1 && members < 50, Integer.toString(members));
+    assertTrue(
+      tree.getStop().getTokenIndex() <
+      pair.getParser().getCurrentToken().getTokenIndex()
+    );
+  }
+
+  @Test
+  void testMaxRecoveryTokens() {
+    ErrorCollector errors = new ErrorCollector();
+    LexerAndParser pair = create(
+      "public class C { void m() { x = 1 2 3 4; } void n() {} }",
+      errors
+    );
+    BoundedErrorStrategy strategy = new BoundedErrorStrategy()
+      .setMaxRecoveryTokens(2);
+    assertNotNull(strategy.parse(pair.getParser(), ApexParser::compilationUnit));
+    assertEquals(Limit.RECOVERY_TOKENS, strategy.getLimit());
+  }
+
+  @Test
+  void testTimeout() {
+    ErrorCollector errors = new ErrorCollector();
+    LexerAndParser pair = create(broken(2000), errors);
+    BoundedErrorStrategy strategy = new BoundedErrorStrategy()
+      .setTimeout(1, TimeUnit.NANOSECONDS);
+    assertNotNull(strategy.parse(pair.getParser(), ApexParser::compilationUnit));
+    assertEquals(Limit.TIME, strategy.getLimit());
+    assertTrue(errors.errors.size() < 2000);
+  }
+
+  @Test
+  void testTimeoutIncludesSLLStage() {
+    ErrorCollector errors = new ErrorCollector();
+    LexerAndParser pair = create(broken(1), errors);
+    // only the SLL stage is slow
+    pair
+      .getParser()
+      .addParseListener(
+        new ApexParserBaseListener() {
+          boolean slept;
+
+          @Override
+          public void enterCompilationUnit(
+            ApexParser.CompilationUnitContext ctx
+          ) {
+            if (slept) return;
+            slept = true;
+            try {
+              Thread.sleep(200);
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        }
+      );
+    BoundedErrorStrategy strategy = new BoundedErrorStrategy()
+      .setTimeout(100, TimeUnit.MILLISECONDS);
+    strategy.parse(pair.getParser(), ApexParser::compilationUnit);
+    assertEquals(Limit.TIME, strategy.getLimit());
+  }
+
+  @Test
+  void testReuse() {
+    BoundedErrorStrategy strategy = new BoundedErrorStrategy()
+      .setMaxErrors(1);
+    strategy.parse(
+      create(broken(5), new ErrorCollector()).getParser(),
+      ApexParser::compilationUnit
+    );
+    assertTrue(strategy.isTruncated());
+
+    strategy.parse(
+      create(VALID, new ErrorCollector()).getParser(),
+      ApexParser::compilationUnit
+    );
+    assertFalse(strategy.isTruncated());
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ByteBufferCharStreamTest {
+
+  private static final String ASCII =
+    "public class Hello {\r\n" +
+    "  String s = 'a\\'b';\n" +
+    "  String m = '''\nmulti\n''';\n" +
+    "  /* comment */ Integer i = 1; // end\n" +
+    "}\n";
+
+  private static final String UNICODE =
+    "public class Hello { String s = 'café 😀'; }";
+
+  @TempDir
+  Path dir;
+
+  private static List<String> tokens(CharStream stream) {
+    ApexLexer lexer = ApexParserFactory.createLexer(stream);
+    List<String> tokens = new ArrayList<>();
+    Token token;
+    do {
+      token = lexer.nextToken();
+      tokens.add(
+        token.getType() +
+          ":" +
+          token.getLine() +
+          ":" +
+          token.getCharPositionInLine() +
+          ":" +
+          token.getStartIndex() +
+          ":" +
+          token.getText()
+      );
+    } while (token.getType() != Token.EOF);
+    return tokens;
+  }
+
+  @Test
+  void testAsciiMatchesCharStreams() throws IOException {
+    CharStream stream = ByteBufferCharStream.fromBytes(
+      ASCII.getBytes(StandardCharsets.UTF_8),
+      "Hello.cls"
+    );
+    assertTrue(stream instanceof ByteBufferCharStream);
+    assertEquals("Hello.cls", stream.getSourceName());
+    assertEquals(ASCII, stream.toString());
+    assertEquals(tokens(CharStreams.fromString(ASCII)), tokens(stream));
+  }
+
+  @Test
+  void testMappedFileMatchesCharStreams() throws IOException {
+    Path file = dir.resolve("Hello.cls");
+    Files.write(file, ASCII.getBytes(StandardCharsets.UTF_8));
+
+    CharStream mapped = ByteBufferCharStream.fromPath(file, 0);
+    assertTrue(mapped instanceof ByteBufferCharStream);
+    assertEquals(tokens(CharStreams.fromPath(file)), tokens(mapped));
+
+    CharStream read = ByteBufferCharStream.fromPath(file);
+    assertTrue(read instanceof ByteBufferCharStream);
+    assertEquals(tokens(CharStreams.fromPath(file)), tokens(read));
+  }
+
+  @Test
+  void testNonAsciiFallsBack() throws IOException {
+    Path file = dir.resolve("Hello.cls");
+    byte[] content = UNICODE.getBytes(StandardCharsets.UTF_8);
+    Files.write(file, content);
+
+    CharStream stream = ByteBufferCharStream.fromPath(file, 0);
+    assertFalse(stream instanceof ByteBufferCharStream);
+    assertEquals(tokens(CharStreams.fromPath(file)), tokens(stream));
+
+    // malformed input is replaced, as with CharStreams
+    content[content.length - 5] = (byte) 0xff;
+    Files.write(file, content);
+    assertEquals(
+      CharStreams.fromPath(file).toString(),
+      ByteBufferCharStream.fromPath(file).toString()
+    );
+  }
+
+  @Test
+  void testBufferSlice() throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(
+      "xxclass A {}yy".getBytes(StandardCharsets.US_ASCII)
+    );
+    buffer.position(2);
+    buffer.limit(12);
+    CharStream stream = ByteBufferCharStream.fromBuffer(buffer, "A.cls");
+    assertEquals("class A {}", stream.toString());
+    assertEquals(10, stream.size());
+  }
+
+  @Test
+  void testStreamContract() throws IOException {
+    CharStream stream = ByteBufferCharStream.fromBytes(
+      "ab".getBytes(StandardCharsets.US_ASCII),
+      null
+    );
+    assertEquals(IntStream.UNKNOWN_SOURCE_NAME, stream.getSourceName());
+    assertEquals(IntStream.EOF, stream.LA(-1));
+    assertEquals('a', stream.LA(1));
+    assertEquals('b', stream.LA(2));
+    assertEquals(IntStream.EOF, stream.LA(3));
+
+    stream.consume();
+    stream.consume();
+    assertEquals('b', stream.LA(-1));
+    assertEquals(IntStream.EOF, stream.LA(1));
+    assertThrows(IllegalStateException.class, stream::consume);
+
+    assertEquals("b", stream.getText(Interval.of(1, 5)));
+    stream.seek(0);
+    assertEquals(0, stream.index());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Test;
+
+public class CharSequenceCharStreamTest {
+
+  private static final String SOURCE =
+    "public class Hello {\r\n" +
+    "  String s = 'a\\'b é';\n" +
+    "  /* comment */ Integer i = 1; // end\n" +
+    "}\n";
+
+  private static List<String> tokens(CharStream stream) {
+    ApexLexer lexer = ApexParserFactory.createLexer(stream);
+    List<String> tokens = new ArrayList<>();
+    Token token;
+    do {
+      token = lexer.nextToken();
+      tokens.add(
+        token.getType() +
+          ":" +
+          token.getLine() +
+          ":" +
+          token.getCharPositionInLine() +
+          ":" +
+          token.getStartIndex() +
+          ":" +
+          token.getText()
+      );
+    } while (token.getType() != Token.EOF);
+    return tokens;
+  }
+
+  @Test
+  void testMatchesCharStreams() {
+    CharStream stream = CharSequenceCharStream.fromCharSequence(
+      SOURCE,
+      "Hello.cls"
+    );
+    assertTrue(stream instanceof CharSequenceCharStream);
+    assertEquals("Hello.cls", stream.getSourceName());
+    assertEquals(SOURCE, stream.toString());
+    assertEquals(tokens(CharStreams.fromString(SOURCE)), tokens(stream));
+  }
+
+  @Test
+  void testRange() {
+    String buffer = "xx" + SOURCE + "yy";
+    CharStream stream = CharSequenceCharStream.fromRange(
+      CharBuffer.wrap(buffer.toCharArray()),
+      2,
+      2 + SOURCE.length(),
+      null
+    );
+    assertEquals(SOURCE.length(), stream.size());
+    assertEquals(IntStream.UNKNOWN_SOURCE_NAME, stream.getSourceName());
+    assertEquals(tokens(CharStreams.fromString(SOURCE)), tokens(stream));
+    assertEquals("class", stream.getText(Interval.of(7, 11)));
+
+    assertThrows(
+      IndexOutOfBoundsException.class,
+      () -> CharSequenceCharStream.fromRange(buffer, 2, buffer.length() + 1, "")
+    );
+  }
+
+  @Test
+  void testSurrogatesFallBack() {
+    String source = "public class Hello { String s = '😀'; }";
+    CharStream stream = CharSequenceCharStream.fromRange(
+      "x" + source,
+      1,
+      source.length() + 1,
+      "Hello.cls"
+    );
+    assertFalse(stream instanceof CharSequenceCharStream);
+    assertEquals(tokens(CharStreams.fromString(source)), tokens(stream));
+  }
+
+  @Test
+  void testStreamContract() {
+    CharStream stream = CharSequenceCharStream.fromRange("-ab-", 1, 3, "");
+    assertEquals(0, stream.index());
+    assertEquals('a', stream.LA(1));
+    assertEquals('b', stream.LA(2));
+    assertEquals(IntStream.EOF, stream.LA(3));
+    assertEquals(IntStream.EOF, stream.LA(-1));
+    stream.consume();
+    assertEquals('a', stream.LA(-1));
+    stream.consume();
+    assertEquals(IntStream.EOF, stream.LA(1));
+    assertThrows(IllegalStateException.class, stream::consume);
+    stream.seek(0);
+    assertEquals('a', stream.LA(1));
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.github.apexdevtools.apexparser.Check.CheckError;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CheckCacheTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void testRoundTrip() throws IOException {
+    Path file = dir.resolve("check.cache");
+    String key = CheckCache.key(".cls", "class A {".getBytes());
+    CheckCache cache = CheckCache.load(file, "v1");
+    assertNull(cache.get(key, "A.cls"));
+    cache.put(
+      key,
+      Collections.singletonList(new CheckError(9, 1, "missing '}'", "A.cls"))
+    );
+    cache.save();
+
+    cache = CheckCache.load(file, "v1");
+    List<CheckError> errors = cache.get(key, "B.cls");
+    assertEquals(1, errors.size());
+    assertEquals(1, errors.get(0).line);
+    assertEquals(9, errors.get(0).column);
+    assertEquals("missing '}'", errors.get(0).message);
+    assertEquals("B.cls", errors.get(0).path);
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  void testKeyIncludesOperation() {
+    byte[] content = "class A {}".getBytes();
+    assertNotEquals(
+      CheckCache.key(".cls", content),
+      CheckCache.key(".apex", content)
+    );
+  }
+
+  @Test
+  void testStaleOrCorruptCacheIsEmpty() throws IOException {
+    Path file = dir.resolve("check.cache");
+    String key = CheckCache.key(".cls", "class A {}".getBytes());
+    CheckCache cache = CheckCache.load(file, "v1");
+    cache.put(key, Collections.emptyList());
+    cache.save();
+
+    assertNull(CheckCache.load(file, "v2").get(key, "A.cls"));
+
+    Files.write(file, new byte[] { 0x41, 0x50, 0x43, 0x43, 0, 0 });
+    assertNull(CheckCache.load(file, "v1").get(key, "A.cls"));
+  }
+
+  @Test
+  void testCorruptCountIsEmpty() throws IOException {
+    Path file = dir.resolve("check.cache");
+    String key = CheckCache.key(".cls", "class A {}".getBytes());
+    CheckCache cache = CheckCache.load(file, "v1");
+    cache.put(key, Collections.emptyList());
+    cache.save();
+
+    // the file ends with the error count of the only entry
+    byte[] content = Files.readAllBytes(file);
+    for (int count : new int[] { -1, Integer.MAX_VALUE }) {
+      ByteBuffer.wrap(content).putInt(content.length - 4, count);
+      Files.write(file, content);
+      assertNull(CheckCache.load(file, "v1").get(key, "A.cls"));
+    }
+  }
+
+  @Test
+  void testUnusedEntriesAreDropped() throws IOException {
+    Path file = dir.resolve("check.cache");
+    String removed = CheckCache.key(".cls", "class A {}".getBytes());
+    CheckCache cache = CheckCache.load(file, "v1");
+    cache.put(removed, Collections.emptyList());
+    cache.save();
+
+    CheckCache.load(file, "v1").save();
+    assertNull(CheckCache.load(file, "v1").get(removed, "A.cls"));
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.apexdevtools.apexparser.Check.CheckError;
+import io.github.apexdevtools.apexparser.Check.CheckFormat;
+import io.github.apexdevtools.apexparser.Check.CheckOptions;
+import io.github.apexdevtools.apexparser.Check.CheckResult;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CheckTest {
+
+  private static final List<String> EXTENSIONS = Arrays.asList(
+    ".cls",
+    ".trigger",
+    ".apex"
+  );
+
+  @TempDir
+  Path dir;
+
+  // Options that collect the report rather than print it
+  private static CheckOptions quiet() {
+    CheckOptions options = new CheckOptions();
+    options.output = new StringWriter();
+    return options;
+  }
+
+  private void writeSources() throws IOException {
+    Files.createDirectories(dir.resolve("classes"));
+    Files.createDirectories(dir.resolve("triggers"));
+    for (int i = 0; i < 20; i++) {
+      String body = i % 3 == 0
+        ? "public class C" + i + " { void m() { Integer x = ; } }"
+        : "public class C" + i + " { void m() { Integer x = " + i + "; } }";
+      Files.write(
+        dir.resolve("classes").resolve("C" + i + ".cls"),
+        body.getBytes()
+      );
+    }
+    Files.write(
+      dir.resolve("triggers").resolve("T.trigger"),
+      "trigger T on Account (before insert) { insert }".getBytes()
+    );
+    Files.write(dir.resolve("script.apex"), "System.debug(1);".getBytes());
+  }
+
+  @Test
+  void testSerial() throws IOException {
+    writeSources();
+    CheckResult result = Check.run(dir, EXTENSIONS, quiet());
+    assertEquals(0, result.status);
+    assertEquals(8, result.errors.size());
+  }
+
+  @Test
+  void testParallelMatchesSerial() throws IOException {
+    writeSources();
+    CheckResult serial = Check.run(dir, EXTENSIONS, quiet());
+
+    CheckOptions options = quiet();
+    options.threads = 4;
+    assertSameErrors(serial, Check.run(dir, EXTENSIONS, options));
+  }
+
+  @Test
+  void testCachedMatchesUncached() throws IOException {
+    writeSources();
+    CheckResult expected = Check.run(dir, EXTENSIONS, quiet());
+
+    CheckOptions options = quiet();
+    options.cacheFile = dir.resolve("cache").resolve("check.cache");
+    assertSameErrors(expected, Check.run(dir, EXTENSIONS, options));
+    assertTrue(Files.exists(options.cacheFile));
+    assertSameErrors(expected, Check.run(dir, EXTENSIONS, options));
+  }
+
+  @Test
+  void testCacheSeesChanges() throws IOException {
+    writeSources();
+    CheckOptions options = quiet();
+    options.cacheFile = dir.resolve("check.cache");
+    assertEquals(8, Check.run(dir, EXTENSIONS, options).errors.size());
+
+    Files.write(
+      dir.resolve("classes").resolve("C0.cls"),
+      "public class C0 {}".getBytes()
+    );
+    assertEquals(7, Check.run(dir, EXTENSIONS, options).errors.size());
+  }
+
+  @Test
+  void testProfile() throws IOException {
+    writeSources();
+    CheckResult expected = Check.run(dir, EXTENSIONS, quiet());
+
+    CheckOptions options = quiet();
+    options.threads = 2;
+    options.profileFile = dir.resolve("profile").resolve("profile.txt");
+    assertSameErrors(expected, Check.run(dir, EXTENSIONS, options));
+
+    List<String> lines = Files.readAllLines(options.profileFile);
+    assertTrue(lines.get(0).startsWith("Profiled 22 files, "), lines.get(0));
+    assertTrue(lines.contains("Rules by prediction time"));
+    assertTrue(lines.contains("Decisions by prediction time"));
+    // rank 1 rule and decision, with a rule name
+    assertTrue(lines.stream().anyMatch(l -> l.matches(" +1 [a-zA-Z]+ .*")));
+    assertTrue(
+      lines.stream().anyMatch(l -> l.matches(" +1 +\\d+ [a-zA-Z]+ .*"))
+    );
+  }
+
+  @Test
+  void testMetrics() throws IOException {
+    writeSources();
+    CheckResult expected = Check.run(dir, EXTENSIONS, quiet());
+
+    CheckOptions options = quiet();
+    options.threads = 2;
+    options.cacheFile = dir.resolve("check.cache");
+    options.metricsFile = dir.resolve("metrics").resolve("metrics.txt");
+    options.slowestFiles = 3;
+    assertSameErrors(expected, Check.run(dir, EXTENSIONS, options));
+
+    List<String> lines = Files.readAllLines(options.metricsFile);
+    assertTrue(lines.get(0).startsWith("Measured 22 files, "), lines.get(0));
+    assertTrue(lines.get(0).endsWith(", 8 parsed again in LL mode"));
+    assertTrue(lines.stream().anyMatch(l -> l.matches("parse ms +[0-9. ]+")));
+    // 8 of the 22 files have one error
+    assertTrue(
+      lines.stream().anyMatch(l -> l.matches("errors +0 +1 +1 +1 +8"))
+    );
+    assertTrue(lines.contains("Slowest 3 files by lex and parse time"));
+    assertEquals(3, lines.stream().filter(l -> l.matches(" +\\d .*")).count());
+  }
+
+  @Test
+  void testMaxErrors() throws IOException {
+    StringBuilder source = new StringBuilder("public class Broken {\n");
+    for (int i = 0; i < 10; i++) {
+      source.append("  void m").append(i).append("( {}\n");
+    }
+    Files.write(
+      dir.resolve("Broken.cls"),
+      source.append("}").toString().getBytes()
+    );
+
+    CheckOptions options = quiet();
+    options.maxErrors = 2;
+    CheckResult result = Check.run(dir, EXTENSIONS, options);
+    assertEquals(3, result.errors.size());
+    assertEquals(
+      "parsing stopped, too many errors",
+      result.errors.get(2).message
+    );
+    assertEquals(4, result.errors.get(2).line);
+  }
+
+  private static void assertSameErrors(
+    CheckResult expected,
+    CheckResult actual
+  ) {
+    assertEquals(expected.status, actual.status);
+    assertEquals(expected.errors.size(), actual.errors.size());
+    for (int i = 0; i < expected.errors.size(); i++) {
+      CheckError e = expected.errors.get(i);
+      CheckError a = actual.errors.get(i);
+      assertEquals(e.path, a.path);
+      assertEquals(e.line, a.line);
+      assertEquals(e.column, a.column);
+      assertEquals(e.message, a.message);
+    }
+  }
+
+  private String runWithFormat(CheckFormat format) throws IOException {
+    StringWriter output = new StringWriter();
+    CheckOptions options = new CheckOptions();
+    options.format = format;
+    options.output = output;
+    assertEquals(0, Check.run(dir, EXTENSIONS, options).status);
+    return output.toString();
+  }
+
+  @Test
+  void testDefaultFormat() throws IOException {
+    writeSources();
+    List<String> lines = Arrays.asList(
+      runWithFormat(CheckFormat.DEFAULT).split("\n")
+    );
+    assertEquals(
+      8,
+      lines.stream().filter(l -> l.startsWith("{\"column\":")).count()
+    );
+    assertTrue(lines.contains("Found 1 syntax errors in: triggers/T.trigger"));
+    assertTrue(lines.contains("Parsed 20 '.cls' files in: " + dir));
+  }
+
+  @Test
+  void testTextFormat() throws IOException {
+    writeSources();
+    String output = runWithFormat(CheckFormat.TEXT);
+    assertTrue(output.contains("classes/C0.cls:1:42: error: "), output);
+    assertTrue(output.endsWith("\nFound 8 syntax errors in 8 files\n"), output);
+
+    // only error lines before the summary
+    String[] lines = output.split("\n");
+    assertEquals(9, lines.length, output);
+    for (int i = 0; i < 8; i++) {
+      assertTrue(lines[i].matches("[^:]+:\\d+:\\d+: error: .+"), lines[i]);
+    }
+  }
+
+  @Test
+  void testNDJSONFormat() throws IOException {
+    writeSources();
+    String[] lines = runWithFormat(CheckFormat.NDJSON).split("\n");
+    assertEquals(8, lines.length);
+    for (String line : lines) {
+      assertTrue(line.startsWith("{\"column\":") && line.endsWith("}"), line);
+    }
+  }
+
+  @Test
+  void testSARIFFormat() throws IOException {
+    writeSources();
+    String output = runWithFormat(CheckFormat.SARIF);
+    assertTrue(output.startsWith("{\"$schema\":"), output);
+    assertTrue(output.endsWith("]}]}\n"), output);
+    assertEquals(8, output.split("\"ruleId\":").length - 1);
+    assertTrue(
+      output.contains(
+        "\"uri\":\"classes/C0.cls\",\"uriBaseId\":\"SRCROOT\"},\"region\":{\"startLine\":1,\"startColumn\":42}"
+      ),
+      output
+    );
+  }
+
+  @Test
+  void testErrorConsumer() throws IOException {
+    writeSources();
+    List<CheckError> consumed = new ArrayList<>();
+    CheckOptions options = quiet();
+    options.threads = 2;
+    options.errorConsumer = consumed::add;
+    CheckResult result = Check.run(dir, EXTENSIONS, options);
+    assertEquals(0, result.errors.size());
+    assertEquals(8, result.errorCount);
+    assertEquals(8, consumed.size());
+  }
+
+  @Test
+  void testJSONEscaping() throws IOException {
+    StringWriter output = new StringWriter();
+    CheckReporter.writeJSONString(output, "a\"b\\c\nd\re\tf\u0001g");
+    assertEquals("\"a\\\"b\\\\c\\nd\\re\\tf\\u0001g\"", output.toString());
+  }
+
+  @Test
+  void testMissingPath() {
+    CheckOptions options = quiet();
+    options.threads = 2;
+    CheckResult result = Check.run(dir.resolve("missing"), EXTENSIONS, options);
+    assertEquals(2, result.status);
+  }
+}
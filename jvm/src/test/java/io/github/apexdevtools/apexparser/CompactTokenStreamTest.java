@@ -0,0 +1,157 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+
+public class CompactTokenStreamTest {
+
+  private static final String SOURCE =
+    "/** Doc */\r\n" +
+    "public class Hello {\r\n" +
+    "  // café 😀\n" +
+    "  String s = 'multi 😀 byte';\n" +
+    "  /* block\n   comment */ Integer i = 1;\n" +
+    "}";
+
+  private static CharStream readWarmUp(String name) throws IOException {
+    try (
+      InputStream in = ApexParserFactory.class.getResourceAsStream(
+        "warmup/" + name
+      )
+    ) {
+      return CharStreams.fromStream(in);
+    }
+  }
+
+  @Test
+  void testTokensMatchCommonTokenStream() throws IOException {
+    assertSameTokens(CharStreams.fromString(SOURCE));
+    assertSameTokens(CharStreams.fromString(""));
+    assertSameTokens(readWarmUp("Warmup.cls"));
+    assertSameTokens(readWarmUp("Warmup.trigger"));
+  }
+
+  @Test
+  void testParseTreeMatchesCommonTokenStream() throws IOException {
+    for (String name : new String[] { "Warmup.cls", "Warmup.apex" }) {
+      ApexParser expected = ApexParserFactory.createParser(
+        ApexParserFactory.createTokenStream(readWarmUp(name))
+      );
+      ApexParser actual = ApexParserFactory.createParser(
+        ApexParserFactory.createCompactTokenStream(readWarmUp(name))
+      );
+      if (name.endsWith(".cls")) {
+        assertEquals(
+          expected.compilationUnit().toStringTree(expected),
+          actual.compilationUnit().toStringTree(actual)
+        );
+      } else {
+        assertEquals(
+          expected.anonymousUnit().toStringTree(expected),
+          actual.anonymousUnit().toStringTree(actual)
+        );
+      }
+    }
+  }
+
+  @Test
+  void testErrorsMatchCommonTokenStream() {
+    String[] sources = new String[] {
+      "public class Hello { void m() { Integer x = ; } }",
+      "public class Hello { void m() { Integer x = 1 } }",
+      "public class Hello { void m( { } }",
+    };
+    for (String source : sources) {
+      ApexParserFactoryTest.ErrorCollector expected =
+        new ApexParserFactoryTest.ErrorCollector();
+      ApexParser parser = ApexParserFactory.createParser(
+        ApexParserFactory.createTokenStream(CharStreams.fromString(source))
+      );
+      parser.addErrorListener(expected);
+      String expectedTree = ApexParserFactory.parse(
+        parser,
+        ApexParser::compilationUnit
+      ).toStringTree(parser);
+
+      ApexParserFactoryTest.ErrorCollector actual =
+        new ApexParserFactoryTest.ErrorCollector();
+      parser = ApexParserFactory.createParser(
+        ApexParserFactory.createCompactTokenStream(
+          CharStreams.fromString(source)
+        )
+      );
+      parser.addErrorListener(actual);
+      String actualTree = ApexParserFactory.parse(
+        parser,
+        ApexParser::compilationUnit
+      ).toStringTree(parser);
+
+      assertEquals(1, expected.errors.size(), source);
+      assertEquals(expected.errors, actual.errors, source);
+      assertEquals(expectedTree, actualTree, source);
+    }
+  }
+
+  @Test
+  void testLookBehindAndHiddenTokens() {
+    CompactTokenStream tokens = ApexParserFactory.createCompactTokenStream(
+      CharStreams.fromString(SOURCE)
+    );
+    assertNull(tokens.LT(-1));
+    assertEquals(ApexLexer.PUBLIC, tokens.LA(1));
+    assertEquals(ApexLexer.CLASS, tokens.LA(2));
+    tokens.consume();
+    assertEquals(ApexLexer.PUBLIC, tokens.LA(-1));
+
+    List<Token> hidden = tokens.getHiddenTokensToLeft(
+      tokens.LT(-1).getTokenIndex(),
+      ApexLexer.COMMENT_CHANNEL
+    );
+    assertEquals(1, hidden.size());
+    assertEquals("/** Doc */", hidden.get(0).getText());
+
+    tokens.fill();
+    assertThrows(IndexOutOfBoundsException.class, () ->
+      tokens.get(tokens.size())
+    );
+  }
+
+  private static void assertSameTokens(CharStream input) {
+    CommonTokenStream expected = ApexParserFactory.createTokenStream(input);
+    expected.fill();
+    input.seek(0);
+    CompactTokenStream actual = ApexParserFactory.createCompactTokenStream(
+      input
+    );
+    actual.fill();
+
+    assertEquals(expected.size(), actual.size());
+    assertEquals(expected.getText(), actual.getText());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).toString(), actual.get(i).toString());
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.apexdevtools.apexparser.ApexParserFactory.LexerAndParser;
+import io.github.apexdevtools.apexparser.ApexParserFactoryTest.ErrorCollector;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.junit.jupiter.api.Test;
+
+public class CompactTreeTest {
+
+  private static final String[] CLASSES = new String[] {
+    "public class Hello {}",
+    "public class Hello {",
+    "public class Hello { void m() { Integer x = ; } }",
+    "public class Hello { void m() { x = a.b.c(1 + 2 * 3)[0].d; } }",
+    "public class Hello { void m() { x = y ? a || b && !c : (Integer) -d; } }",
+    "public class Hello { Integer x = 1 2 3; }",
+    "public class Hello { List<Account> a = [SELECT Id FROM Account WHERE ]; }",
+    "class { }",
+  };
+
+  @Test
+  void testBuilderMatchesConverter() throws IOException {
+    for (String source : CLASSES) {
+      assertSameTree(CharStreams.fromString(source));
+    }
+    try (
+      InputStream in = ApexParserFactory.class.getResourceAsStream(
+        "warmup/Warmup.cls"
+      )
+    ) {
+      assertSameTree(CharStreams.fromStream(in));
+    }
+  }
+
+  @Test
+  void testNodes() {
+    LexerAndParser pair = ApexParserFactory.createLexerAndParser(
+      CharStreams.fromString("class C { Integer x = a + b.c; }"),
+      new ErrorCollector()
+    );
+    CompactTree tree = CompactTree.parse(
+      pair.getParser(),
+      ApexParser::compilationUnit
+    );
+
+    assertEquals(ApexParser.RULE_compilationUnit, tree.getRuleIndex(0));
+    assertEquals(-1, tree.getParent(0));
+    assertEquals(-1, tree.getNextSibling(0));
+    assertEquals(0, tree.getStartTokenIndex(0));
+
+    int plus = find(tree, "arth2Expression");
+    assertEquals("expression", tree.getRuleName(plus));
+    assertEquals(2, tree.getChildCount(plus));
+    int left = tree.getFirstChild(plus);
+    int right = tree.getNextSibling(left);
+    assertEquals("primaryExpression", tree.getLabel(left));
+    assertEquals("dotExpression", tree.getLabel(right));
+    assertEquals(-1, tree.getNextSibling(right));
+    assertEquals(
+      "a",
+      pair.getParser().getTokenStream().get(tree.getStartTokenIndex(left)).getText()
+    );
+    assertEquals(
+      "c",
+      pair.getParser().getTokenStream().get(tree.getStopTokenIndex(right)).getText()
+    );
+    int primary = tree.getFirstChild(left);
+    assertEquals("idPrimary", tree.getLabel(primary));
+    assertNull(tree.getLabel(tree.getFirstChild(primary)));
+  }
+
+  @Test
+  void testCursor() {
+    LexerAndParser pair = ApexParserFactory.createLexerAndParser(
+      CharStreams.fromString("class C { void m() {} Integer x; }"),
+      new ErrorCollector()
+    );
+    CompactTree tree = CompactTree.of(pair.getParser().compilationUnit());
+    CompactTree.Cursor cursor = tree.cursor();
+
+    assertFalse(cursor.gotoParent());
+    assertFalse(cursor.gotoNextSibling());
+    List<String> names = new ArrayList<>();
+    int visited = 0;
+    do {
+      names.add(cursor.getRuleName());
+      visited++;
+      if (cursor.gotoFirstChild()) continue;
+      while (!cursor.gotoNextSibling()) {
+        if (!cursor.gotoParent()) break;
+      }
+    } while (cursor.getNode() != 0);
+    assertEquals(tree.size(), visited);
+    assertEquals("compilationUnit", names.get(0));
+    assertTrue(names.contains("methodDeclaration"));
+    assertTrue(names.contains("fieldDeclaration"));
+
+    cursor.reset(tree.size() - 1);
+    assertFalse(cursor.gotoFirstChild());
+    assertTrue(cursor.gotoParent());
+  }
+
+  private static int find(CompactTree tree, String label) {
+    for (int n = 0; n < tree.size(); n++) {
+      if (label.equals(tree.getLabel(n))) return n;
+    }
+    throw new AssertionError("No node labelled " + label);
+  }
+
+  private static void assertSameTree(CharStream stream) {
+    LexerAndParser pair = ApexParserFactory.createLexerAndParser(
+      stream,
+      new ErrorCollector()
+    );
+    ParserRuleContext root = ApexParserFactory.parse(
+      pair.getParser(),
+      ApexParser::compilationUnit
+    );
+    CompactTree expected = CompactTree.of(root);
+
+    stream.seek(0);
+    pair = ApexParserFactory.createLexerAndParser(stream, new ErrorCollector());
+    CompactTree actual = CompactTree.parse(
+      pair.getParser(),
+      ApexParser::compilationUnit
+    );
+
+    assertEquals(expected.size(), actual.size());
+    for (int n = 0; n < expected.size(); n++) {
+      assertEquals(expected.getRuleName(n), actual.getRuleName(n));
+      assertEquals(expected.getLabel(n), actual.getLabel(n));
+      assertEquals(
+        expected.getStartTokenIndex(n),
+        actual.getStartTokenIndex(n)
+      );
+      assertEquals(expected.getStopTokenIndex(n), actual.getStopTokenIndex(n));
+      assertEquals(expected.getParent(n), actual.getParent(n));
+      assertEquals(expected.getFirstChild(n), actual.getFirstChild(n));
+      assertEquals(expected.getNextSibling(n), actual.getNextSibling(n));
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.apexdevtools.apexparser.ApexParser.CompilationUnitContext;
+import io.github.apexdevtools.apexparser.ApexParserFactoryTest.ErrorCollector;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import org.antlr.v4.runtime.BufferedTokenStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalParserTest {
+
+  private static final String SOURCE =
+    "public class Hello {\n" +
+    "  // counter\n" +
+    "  private Integer count = 0;\n" +
+    "  public void m(Integer a) {\n" +
+    "    if (a > 1) {\n" +
+    "      count += a;\n" +
+    "    }\n" +
+    "    System.debug(count);\n" +
+    "  }\n" +
+    "  public String name { get; set; }\n" +
+    "}\n";
+
+  private static final String[] SNIPPETS = new String[] {
+    "",
+    " ",
+    "\n",
+    "x",
+    "1",
+    ".",
+    ";",
+    "{",
+    "}",
+    "(",
+    "'",
+    "/*",
+    "*/",
+    "//",
+    "a = b;",
+    "if (a) { b(); }",
+    "void n() {}",
+  };
+
+  private static String readWarmUp() throws IOException {
+    try (
+      InputStream in = ApexParserFactory.class.getResourceAsStream(
+        "warmup/Warmup.cls"
+      );
+      Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())
+    ) {
+      return scanner.useDelimiter("\\A").next();
+    }
+  }
+
+  @Test
+  void testBodyEditReparsesBlock() {
+    IncrementalParser<CompilationUnitContext> parser =
+      IncrementalParser.forCompilationUnit(SOURCE, new ErrorCollector());
+    CompilationUnitContext tree = parser.getTree();
+
+    int offset = SOURCE.indexOf("count += a");
+    assertSame(tree, parser.edit(offset, 5, "total"));
+    assertTrue(parser.getLastReparsed() instanceof ApexParser.BlockContext);
+    assertEquals("{total+=a;}", parser.getLastReparsed().getText());
+    assertMatchesFullParse(parser);
+  }
+
+  @Test
+  void testCommentEditKeepsTree() {
+    IncrementalParser<CompilationUnitContext> parser =
+      IncrementalParser.forCompilationUnit(SOURCE, new ErrorCollector());
+
+    parser.edit(SOURCE.indexOf("counter"), 0, "a ");
+    assertNull(parser.getLastReparsed());
+    parser.edit(SOURCE.indexOf("System"), 0, "\n\n    ");
+    assertNull(parser.getLastReparsed());
+    assertMatchesFullParse(parser);
+  }
+
+  @Test
+  void testStructuralEditMovesOutwards() {
+    IncrementalParser<CompilationUnitContext> parser =
+      IncrementalParser.forCompilationUnit(SOURCE, new ErrorCollector());
+
+    // Balanced, so the method body still ends at the same token
+    int offset = SOURCE.indexOf("count += a");
+    parser.edit(offset, 0, "} {");
+    assertTrue(parser.getLastReparsed() instanceof ApexParser.BlockContext);
+    assertTrue(parser.getLastReparsed().getText().startsWith("{if"));
+    assertMatchesFullParse(parser);
+
+    // Splits the method, so the class must be parsed again
+    offset = parser.getText().indexOf("System");
+    parser.edit(offset, 0, "} void n() {");
+    assertSame(parser.getTree(), parser.getLastReparsed());
+    assertMatchesFullParse(parser);
+  }
+
+  @Test
+  void testErrorsMatchFullParse() {
+    ErrorCollector errors = new ErrorCollector();
+    IncrementalParser<CompilationUnitContext> parser =
+      IncrementalParser.forCompilationUnit(SOURCE, errors);
+
+    int offset = SOURCE.indexOf("count += a");
+    parser.edit(offset, 10, "count +=");
+    assertTrue(parser.hasErrors());
+    assertSame(parser.getTree(), parser.getLastReparsed());
+    assertEquals(1, errors.errors.size());
+
+    parser.edit(offset + 8, 0, " a");
+    assertFalse(parser.hasErrors());
+    assertEquals(1, errors.errors.size());
+    assertMatchesFullParse(parser);
+  }
+
+  @Test
+  void testRandomEditsMatchFullParse() throws IOException {
+    String source = readWarmUp();
+    IncrementalParser<CompilationUnitContext> parser =
+      IncrementalParser.forCompilationUnit(source, new ErrorCollector());
+    Random random = new Random(42);
+    int partial = 0;
+
+    for (int i = 0; i < 40; i++) {
+      String text = parser.getText();
+      int offset = random.nextInt(text.length());
+      int length = Math.min(random.nextInt(4), text.length() - offset);
+      String removed = text.substring(offset, offset + length);
+      String inserted = SNIPPETS[random.nextInt(SNIPPETS.length)];
+
+      parser.edit(offset, length, inserted);
+      assertMatchesFullParse(parser);
+      if (parser.getLastReparsed() != parser.getTree()) partial++;
+
+      // Undo, so most edits start from valid source
+      parser.edit(offset, inserted.length(), removed);
+      assertMatchesFullParse(parser);
+      assertEquals(text, parser.getText());
+    }
+    assertTrue(partial > 5, "Only " + partial + " partial reparses");
+  }
+
+  private static void assertMatchesFullParse(
+    IncrementalParser<CompilationUnitContext> incremental
+  ) {
+    ErrorCollector errors = new ErrorCollector();
+    ApexParserFactory.LexerAndParser pair =
+      ApexParserFactory.createLexerAndParser(
+        CharStreams.fromString(incremental.getText()),
+        errors
+      );
+    ApexParser parser = pair.getParser();
+    CompilationUnitContext tree = ApexParserFactory.parse(
+      parser,
+      ApexParser::compilationUnit
+    );
+    BufferedTokenStream stream = (BufferedTokenStream) parser.getInputStream();
+    stream.fill();
+
+    List<Token> expected = stream.getTokens();
+    List<Token> actual = incremental.getTokens();
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(describe(expected.get(i)), describe(actual.get(i)));
+    }
+    assertEquals(!errors.errors.isEmpty(), incremental.hasErrors());
+    assertEquals(dump(tree), dump(incremental.getTree()));
+  }
+
+  private static String describe(Token token) {
+    return (
+      token.getTokenIndex() +
+      ":" +
+      token.getType() +
+      ":" +
+      token.getChannel() +
+      ":" +
+      token.getStartIndex() +
+      "-" +
+      token.getStopIndex() +
+      ":" +
+      token.getLine() +
+      "," +
+      token.getCharPositionInLine() +
+      ":" +
+      token.getText()
+    );
+  }
+
+  private static String dump(ParseTree node) {
+    if (node instanceof TerminalNode) {
+      return describe(((TerminalNode) node).getSymbol());
+    }
+    ParserRuleContext context = (ParserRuleContext) node;
+    StringBuilder builder = new StringBuilder("(")
+      .append(ApexParser.ruleNames[context.getRuleIndex()])
+      .append(' ')
+      .append(context.getStart().getTokenIndex())
+      .append(' ')
+      .append(context.getStop() == null ? -1 : context.getStop().getTokenIndex());
+    for (int i = 0; i < context.getChildCount(); i++) {
+      ParseTree child = context.getChild(i);
+      assertSame(context, child.getParent());
+      builder.append(' ').append(dump(child));
+    }
+    return builder.append(')').toString();
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.apexdevtools.apexparser.ApexParserFactory.LexerAndParser;
+import io.github.apexdevtools.apexparser.ApexParserFactoryTest.ErrorCollector;
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.junit.jupiter.api.Test;
+
+public class ParseMetricsTest {
+
+  private static ParseMetrics parse(String source, ErrorCollector errors) {
+    LexerAndParser pair = ApexParserFactory.createLexerAndParser(
+      CharStreams.fromString(source),
+      errors
+    );
+    List<ParseMetrics> reported = new ArrayList<>();
+    ParserRuleContext tree = ApexParserFactory.parse(
+      pair.getParser(),
+      ApexParser::compilationUnit,
+      reported::add
+    );
+    assertEquals(1, reported.size());
+    ParseMetrics metrics = reported.get(0);
+    assertEquals(ParseMetrics.countNodes(tree), metrics.getNodeCount());
+    return metrics;
+  }
+
+  @Test
+  void testValidInput() {
+    String source = "public class Hello { void m() { Integer x = 1; } }";
+    ErrorCollector errors = new ErrorCollector();
+    ParseMetrics metrics = parse(source, errors);
+
+    CommonTokenStream tokens = ApexParserFactory.createTokenStream(
+      CharStreams.fromString(source)
+    );
+    tokens.fill();
+    assertEquals(tokens.size(), metrics.getTokenCount());
+    assertTrue(metrics.getNodeCount() > metrics.getTokenCount());
+    assertFalse(metrics.isFallback());
+    assertEquals(0, metrics.getErrorCount());
+    assertTrue(metrics.getMaxLookahead() >= 1);
+    assertTrue(metrics.getLexNanos() > 0 && metrics.getParseNanos() > 0);
+  }
+
+  @Test
+  void testErrorsAndFallback() {
+    ErrorCollector errors = new ErrorCollector();
+    ParseMetrics metrics = parse(
+      "public class Hello { String s = '\\q'; void m() { Integer x = ; } }",
+      errors
+    );
+    assertTrue(metrics.isFallback());
+    // a lexer error and a parser error, at least
+    assertTrue(errors.errors.size() >= 2, errors.errors.toString());
+    assertEquals(errors.errors.size(), metrics.getErrorCount());
+  }
+
+  @Test
+  void testSameErrorsAsParse() {
+    String source = "public class Hello { void m() { Integer x = ; } }";
+    ErrorCollector expected = new ErrorCollector();
+    ApexParserFactory.parseCompilationUnit(
+      CharStreams.fromString(source),
+      expected
+    );
+    ErrorCollector actual = new ErrorCollector();
+    parse(source, actual);
+    assertEquals(expected.errors, actual.errors);
+  }
+
+  @Test
+  void testLookahead() {
+    // a cast needs lookahead past the closing parenthesis
+    ParseMetrics metrics = parse(
+      "public class Hello { void m() { Object o = (Integer) -x; } }",
+      new ErrorCollector()
+    );
+    assertTrue(metrics.getMaxLookahead() > 3, metrics.toString());
+  }
+
+  @Test
+  void testPercentile() {
+    long[] values = new long[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+    assertEquals(5, CheckMetrics.percentile(values, 50));
+    assertEquals(9, CheckMetrics.percentile(values, 90));
+    assertEquals(10, CheckMetrics.percentile(values, 99));
+    assertEquals(0, CheckMetrics.percentile(new long[0], 50));
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.github.apexdevtools.apexparser.ApexParserFactoryTest.ErrorCollector;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SerializedParseTest {
+
+  @TempDir
+  Path dir;
+
+  private static CharStream warmup() throws IOException {
+    try (
+      InputStream in = ApexParserFactory.class.getResourceAsStream(
+        "warmup/Warmup.cls"
+      )
+    ) {
+      return CharStreams.fromStream(in);
+    }
+  }
+
+  private static CompactTree parse(CompactTokenStream tokens) {
+    ApexParser parser = ApexParserFactory.createParser(tokens);
+    parser.removeErrorListeners();
+    parser.addErrorListener(new ErrorCollector());
+    return CompactTree.parse(parser, ApexParser::compilationUnit);
+  }
+
+  @Test
+  void testRoundTrip() throws IOException {
+    CharStream input = warmup();
+    CompactTokenStream tokens = ApexParserFactory.createCompactTokenStream(
+      input
+    );
+    CompactTree tree = parse(tokens);
+
+    SerializedParse result = SerializedParse.read(
+      SerializedParse.write(tokens, tree)
+    );
+    assertEquals(input.size(), result.getSourceSize());
+    assertSameTokens(tokens, result.getTokenStream(input));
+    assertSameTree(tree, result.getTree());
+
+    // restored tokens can be parsed again
+    assertSameTree(tree, parse(result.getTokenStream(input)));
+  }
+
+  @Test
+  void testMappedFile() throws IOException {
+    CharStream input = CharStreams.fromString(
+      "public class C { String s = 'x'; /* comment */ }"
+    );
+    CompactTokenStream tokens = ApexParserFactory.createCompactTokenStream(
+      input
+    );
+    CompactTree tree = parse(tokens);
+
+    Path file = dir.resolve("cache").resolve("C.bin");
+    SerializedParse.write(file, tokens, tree);
+    SerializedParse result = SerializedParse.read(file);
+    assertSameTokens(tokens, result.getTokenStream(input));
+    assertSameTree(tree, result.getTree());
+  }
+
+  @Test
+  void testInvalid() throws IOException {
+    CharStream input = CharStreams.fromString("public class C {}");
+    CompactTokenStream tokens = ApexParserFactory.createCompactTokenStream(
+      input
+    );
+    ByteBuffer buffer = SerializedParse.write(tokens, parse(tokens));
+
+    ByteBuffer truncated = buffer.duplicate();
+    truncated.limit(buffer.limit() - 4);
+    assertThrows(IOException.class, () -> SerializedParse.read(truncated));
+
+    // grammar fingerprint follows a 16 byte header
+    ByteBuffer stale = ByteBuffer.allocate(buffer.remaining());
+    stale.put(buffer.duplicate()).flip();
+    stale.put(16, (byte) (stale.get(16) ^ 1));
+    assertThrows(IOException.class, () -> SerializedParse.read(stale));
+
+    SerializedParse result = SerializedParse.read(buffer);
+    assertThrows(
+      IllegalArgumentException.class,
+      () -> result.getTokenStream(CharStreams.fromString("class C {}"))
+    );
+  }
+
+  @Test
+  void testCorruptText() throws IOException {
+    CharStream input = CharStreams.fromString("class C {}");
+    ApexLexer lexer = new ApexLexer(input) {
+      @Override
+      public Token emit() {
+        if (_type == ApexLexer.Identifier) setText("D");
+        return super.emit();
+      }
+    };
+    CompactTokenStream tokens = new CompactTokenStream(lexer);
+    ByteBuffer buffer = SerializedParse.write(tokens, parse(tokens));
+    assertEquals(
+      "D",
+      SerializedParse.read(buffer).getTokenStream(input).getText(2)
+    );
+
+    // the only text entry ends the buffer, its index, length and padded text
+    int end = buffer.limit();
+    int[][] corruptions = new int[][] {
+      { end - 12, -1 },
+      { end - 12, tokens.size() },
+      { end - 8, -1 },
+      { end - 8, 5 },
+      { end - 8, Integer.MAX_VALUE },
+    };
+    for (int[] corruption : corruptions) {
+      ByteBuffer corrupt = ByteBuffer
+        .allocate(buffer.remaining())
+        .order(ByteOrder.LITTLE_ENDIAN);
+      corrupt.put(buffer.duplicate()).flip();
+      corrupt.putInt(corruption[0], corruption[1]);
+      assertThrows(IOException.class, () -> SerializedParse.read(corrupt));
+    }
+  }
+
+  private static void assertSameTokens(
+    CompactTokenStream expected,
+    CompactTokenStream actual
+  ) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getType(i), actual.getType(i));
+      assertEquals(expected.getChannel(i), actual.getChannel(i));
+      assertEquals(expected.getStartIndex(i), actual.getStartIndex(i));
+      assertEquals(expected.getStopIndex(i), actual.getStopIndex(i));
+      assertEquals(expected.getLine(i), actual.getLine(i));
+      assertEquals(
+        expected.getCharPositionInLine(i),
+        actual.getCharPositionInLine(i)
+      );
+      assertEquals(expected.getText(i), actual.getText(i));
+    }
+  }
+
+  private static void assertSameTree(CompactTree expected, CompactTree actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int n = 0; n < expected.size(); n++) {
+      assertEquals(expected.getRuleIndex(n), actual.getRuleIndex(n));
+      assertEquals(expected.getLabel(n), actual.getLabel(n));
+      assertEquals(
+        expected.getStartTokenIndex(n),
+        actual.getStartTokenIndex(n)
+      );
+      assertEquals(expected.getStopTokenIndex(n), actual.getStopTokenIndex(n));
+      assertEquals(expected.getParent(n), actual.getParent(n));
+      assertEquals(expected.getNextSibling(n), actual.getNextSibling(n));
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.apexdevtools.apexparser.ApexParserFactory.LexerAndParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.junit.jupiter.api.Test;
+
+public class SignatureTokenSourceTest {
+
+  private static CharStream resource(String name) throws IOException {
+    try (InputStream in = ApexParserFactory.class.getResourceAsStream(name)) {
+      return CharStreams.fromStream(in, StandardCharsets.UTF_8);
+    }
+  }
+
+  // Like toStringTree, but blocks are not expanded
+  private static void outline(ParseTree tree, StringBuilder out) {
+    if (tree instanceof TerminalNode) {
+      out.append(tree.getText()).append(' ');
+    } else if (tree instanceof ApexParser.BlockContext) {
+      out.append("(block) ");
+    } else {
+      out
+        .append('(')
+        .append(ApexParser.ruleNames[((ParserRuleContext) tree).getRuleIndex()])
+        .append(' ');
+      for (int i = 0; i < tree.getChildCount(); i++) {
+        outline(tree.getChild(i), out);
+      }
+      out.append(") ");
+    }
+  }
+
+  private static void collectBlocks(
+    ParseTree tree,
+    List<ApexParser.BlockContext> blocks
+  ) {
+    if (tree instanceof ApexParser.BlockContext) {
+      blocks.add((ApexParser.BlockContext) tree);
+      return;
+    }
+    for (int i = 0; i < tree.getChildCount(); i++) {
+      collectBlocks(tree.getChild(i), blocks);
+    }
+  }
+
+  private void assertMatchesFullParse(
+    String resource,
+    Function<ApexParser, ? extends ParserRuleContext> rule
+  ) throws IOException {
+    ApexParserFactoryTest.ErrorCollector errors =
+      new ApexParserFactoryTest.ErrorCollector();
+    LexerAndParser full = ApexParserFactory.createLexerAndParser(
+      resource(resource),
+      errors
+    );
+    ParserRuleContext fullTree = rule.apply(full.getParser());
+
+    LexerAndParser signatures =
+      ApexParserFactory.createSignatureLexerAndParser(
+        resource(resource),
+        errors
+      );
+    ParserRuleContext signatureTree = rule.apply(signatures.getParser());
+    assertEquals(new ArrayList<String>(), errors.errors, resource);
+
+    StringBuilder expected = new StringBuilder();
+    outline(fullTree, expected);
+    StringBuilder actual = new StringBuilder();
+    outline(signatureTree, actual);
+    assertEquals(expected.toString(), actual.toString(), resource);
+
+    Map<Integer, ApexParser.BlockContext> fullBlocks = new HashMap<>();
+    List<ApexParser.BlockContext> blocks = new ArrayList<>();
+    collectBlocks(fullTree, blocks);
+    blocks.forEach(b -> fullBlocks.put(b.getStart().getTokenIndex(), b));
+
+    blocks.clear();
+    collectBlocks(signatureTree, blocks);
+    assertTrue(blocks.size() > 0, resource);
+    for (ApexParser.BlockContext block : blocks) {
+      ApexParser.BlockContext body = ApexParserFactory.parseBody(
+        signatures.getParser(),
+        block
+      );
+      assertEquals(
+        fullBlocks.get(block.getStart().getTokenIndex()).toStringTree(
+          full.getParser()
+        ),
+        body.toStringTree(signatures.getParser())
+      );
+    }
+    assertEquals(new ArrayList<String>(), errors.errors, resource);
+  }
+
+  @Test
+  void testClassMatchesFullParse() throws IOException {
+    assertMatchesFullParse("warmup/Warmup.cls", ApexParser::compilationUnit);
+  }
+
+  @Test
+  void testTriggerMatchesFullParse() throws IOException {
+    assertMatchesFullParse("warmup/Warmup.trigger", ApexParser::triggerUnit);
+  }
+
+  @Test
+  void testAnonymousMatchesFullParse() throws IOException {
+    assertMatchesFullParse("warmup/Warmup.apex", ApexParser::anonymousUnit);
+  }
+
+  @Test
+  void testBodiesAreSkipped() {
+    ApexParserFactoryTest.ErrorCollector errors =
+      new ApexParserFactoryTest.ErrorCollector();
+    LexerAndParser pair = ApexParserFactory.createSignatureLexerAndParser(
+      CharStreams.fromString(
+        "public class A { static { skipped(); } { skipped(); } " +
+        "Map<String, Integer> m = new Map<String, Integer>{ 'a' => 1 }; " +
+        "String p { get { return skipped; } set; } " +
+        "@Ann(values={'a'}) A() { if (b) { skipped(); } } " +
+        "void m() { skipped(); } }"
+      ),
+      errors
+    );
+    String tree = pair
+      .getParser()
+      .compilationUnit()
+      .toStringTree(pair.getParser());
+    assertEquals(new ArrayList<String>(), errors.errors);
+    assertTrue(!tree.contains("skipped"), tree);
+    assertTrue(tree.contains("(getter get (block { }))"), tree);
+    assertTrue(tree.contains("(mapCreatorRestPair "), tree);
+    assertTrue(tree.contains("elementValueArrayInitializer { "), tree);
+  }
+
+  @Test
+  void testUnbalancedBody() {
+    ApexParserFactoryTest.ErrorCollector errors =
+      new ApexParserFactoryTest.ErrorCollector();
+    LexerAndParser pair = ApexParserFactory.createSignatureLexerAndParser(
+      CharStreams.fromString("public class A { void m() { if (x) { }"),
+      errors
+    );
+    pair.getParser().compilationUnit();
+    assertEquals(1, errors.errors.size());
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ Copyright (c) 2026 Kevin Jones, Certinia Inc. All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package io.github.apexdevtools.apexparser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.apexdevtools.apexparser.ApexParserFactory.Trivia;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.junit.jupiter.api.Test;
+
+public class TriviaLexerTest {
+
+  private static final String SOURCE =
+    "/** Doc */\n" +
+    "public class Hello { /**/ /***/\n" +
+    "  // line\n" +
+    "  /* block\n   comment */ Integer i = 1;\n" +
+    "  /**\n   * method\n   */\n" +
+    "  void m() {}\n" +
+    "}";
+
+  private static CharStream readWarmUp() throws IOException {
+    try (
+      InputStream in = ApexParserFactory.class.getResourceAsStream(
+        "warmup/Warmup.cls"
+      )
+    ) {
+      return CharStreams.fromStream(in);
+    }
+  }
+
+  @Test
+  void testNoTrivia() throws IOException {
+    assertEquals(
+      tokens(CharStreams.fromString(SOURCE), Trivia.ALL, false),
+      tokens(CharStreams.fromString(SOURCE), Trivia.NONE, true)
+    );
+    assertEquals(
+      tokens(readWarmUp(), Trivia.ALL, false),
+      tokens(readWarmUp(), Trivia.NONE, true)
+    );
+  }
+
+  @Test
+  void testDocCommentsOnly() {
+    List<String> tokens = tokens(
+      CharStreams.fromString(SOURCE),
+      Trivia.DOC_COMMENTS,
+      true
+    );
+    List<String> comments = new ArrayList<>();
+    for (String token : tokens) {
+      if (token.startsWith(ApexLexer.DOC_COMMENT + ":")) comments.add(token);
+    }
+    assertEquals(3, comments.size());
+    assertEquals(
+      ApexLexer.DOC_COMMENT + ":" + ApexLexer.COMMENT_CHANNEL + ":1:0:/** Doc */",
+      comments.get(0)
+    );
+    assertEquals(
+      tokens(CharStreams.fromString(SOURCE), Trivia.ALL, false).size(),
+      tokens.size() - comments.size()
+    );
+  }
+
+  @Test
+  void testParseTreeUnchanged() throws IOException {
+    ApexParser expected = ApexParserFactory.createParser(readWarmUp());
+    ApexParser actual = ApexParserFactory.createParser(
+      new CompactTokenStream(
+        ApexParserFactory.createLexer(readWarmUp(), Trivia.NONE)
+      )
+    );
+    assertEquals(
+      expected.compilationUnit().toStringTree(expected),
+      actual.compilationUnit().toStringTree(actual)
+    );
+  }
+
+  private static List<String> tokens(
+    CharStream input,
+    Trivia trivia,
+    boolean includeHidden
+  ) {
+    TokenSource lexer = ApexParserFactory.createLexer(input, trivia);
+    List<String> tokens = new ArrayList<>();
+    Token token;
+    do {
+      token = lexer.nextToken();
+      if (includeHidden || token.getChannel() == Token.DEFAULT_CHANNEL) {
+        tokens.add(
+          token.getType() +
+          ":" +
+          token.getChannel() +
+          ":" +
+          token.getLine() +
+          ":" +
+          token.getCharPositionInLine() +
+          ":" +
+          token.getText()
+        );
+      }
+    } while (token.getType() != Token.EOF);
+    return tokens;
+  }
+}